@@ -0,0 +1,56 @@
+package benchmark;
+
+import model.MenuCatalog;
+import model.Order;
+import model.Pizza;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates realistic sample orders for the storage benchmarks.
+ */
+public class BenchmarkData {
+
+    private static final String[] ADDRESSES = {
+            "123 Main Street, Kalutara, Sri Lanka",
+            "45 Galle Road, Kalutara, Sri Lanka",
+            "8 Temple Lane, Panadura, Sri Lanka",
+            "N/A"
+    };
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    /**
+     * Builds the i-th sample order. Dates advance one day every 50 orders.
+     */
+    public static Order sampleOrder(int i) {
+        List<String> toppings = new ArrayList<>();
+        for (int t = 0; t < MenuCatalog.TOPPINGS.length; t++) {
+            if (((i >> t) & 1) == 1) toppings.add(MenuCatalog.TOPPINGS[t]);
+        }
+        Pizza pizza = new Pizza.PizzaBuilder()
+                .setName("Custom Pizza " + (i % 20))
+                .setSize(MenuCatalog.SIZES[i % MenuCatalog.SIZES.length])
+                .setCrust(MenuCatalog.CRUSTS[(i / 3) % MenuCatalog.CRUSTS.length])
+                .setSauce(MenuCatalog.SAUCES[(i / 7) % MenuCatalog.SAUCES.length])
+                .setCheese(MenuCatalog.CHEESES[(i / 11) % MenuCatalog.CHEESES.length])
+                .setToppings(toppings)
+                .setPrice(10.0 + toppings.size() * 1.5)
+                .build();
+        String address = ADDRESSES[i % ADDRESSES.length];
+        return new Order("ORDER" + (1_700_000_000_000L + i), FIRST_DAY.plusDays(i / 50).toString(),
+                pizza.getPrice(), pizza, MenuCatalog.DELIVERY_OPTIONS[address.equals("N/A") ? 0 : 1], address);
+    }
+
+    /**
+     * Builds {@code count} sample orders starting at index {@code from}.
+     */
+    public static List<Order> sampleOrders(int from, int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            orders.add(sampleOrder(i));
+        }
+        return orders;
+    }
+}
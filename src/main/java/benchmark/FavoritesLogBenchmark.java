@@ -0,0 +1,61 @@
+package benchmark;
+
+import com.google.gson.reflect.TypeToken;
+import manager.FavoritesLog;
+import manager.PersistenceWriter;
+import manager.StorageManager;
+import model.Pizza;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the cost of adding one favorite by rewriting the whole favorites file (the old
+ * behaviour) with appending one record to the {@link FavoritesLog}, for growing numbers of
+ * existing favorites. Each add waits until its write is on disk.
+ * <p>
+ * Usage: {@code FavoritesLogBenchmark [adds per size]}
+ */
+public class FavoritesLogBenchmark {
+
+    private static final Type LIST_TYPE = new TypeToken<List<Pizza>>() {}.getType();
+
+    public static void main(String[] args) throws IOException {
+        int adds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        Path directory = Files.createTempDirectory("favorites");
+        PersistenceWriter writer = PersistenceWriter.getInstance();
+
+        System.out.printf("%-12s %-16s %-16s%n", "favorites", "rewrite ms/add", "log ms/add");
+        for (int size : new int[]{100, 1_000, 10_000}) {
+            List<Pizza> favorites = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                favorites.add(BenchmarkData.sampleOrder(i).getPizza());
+            }
+
+            Path rewriteFile = directory.resolve("rewrite-" + size + ".json");
+            long start = System.nanoTime();
+            for (int i = 0; i < adds; i++) {
+                favorites.add(BenchmarkData.sampleOrder(i).getPizza());
+                byte[] json = StorageManager.getGson().toJson(favorites, LIST_TYPE).getBytes(StandardCharsets.UTF_8);
+                writer.replace(rewriteFile, json).join();
+            }
+            double rewrite = (System.nanoTime() - start) / 1e6 / adds;
+
+            FavoritesLog log = new FavoritesLog(directory.resolve("base-" + size + ".json"),
+                    directory.resolve("log-" + size + ".log"), StorageManager.getGson());
+            log.replaceAll(favorites.subList(0, size));
+            start = System.nanoTime();
+            for (int i = 0; i < adds; i++) {
+                log.add(BenchmarkData.sampleOrder(i).getPizza());
+                writer.flush();
+            }
+            double append = (System.nanoTime() - start) / 1e6 / adds;
+            System.out.printf("%-12d %-16.2f %-16.2f%n", size, rewrite, append);
+        }
+    }
+}
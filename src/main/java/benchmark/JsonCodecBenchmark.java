@@ -0,0 +1,82 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import manager.LocalDateAdapter;
+import manager.OrderStateAdapter;
+import manager.StorageManager;
+import model.ExtraCheeseDecorator;
+import model.Order;
+import model.OrderState;
+import model.Promotion;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Compares the reflective Gson mapping of orders with the hand-written model adapters registered
+ * in {@link StorageManager#getGson()}, for encoding and decoding a list of orders.
+ * <p>
+ * Usage: {@code JsonCodecBenchmark [orders] [rounds]}
+ */
+public class JsonCodecBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<Order> orders = BenchmarkData.sampleOrders(0, count);
+        Promotion promotion = new Promotion("HOLIDAY10", "Holiday Special - $10 Off", 10.0, true,
+                LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31), "ORDER");
+        for (int i = 0; i < count; i += 10) {
+            orders.get(i).setAppliedPromotion(promotion);
+        }
+
+        // The mapping used before the model adapters: reflection plus the two field adapters it needs
+        Gson reflective = new GsonBuilder()
+                .registerTypeHierarchyAdapter(OrderState.class, new OrderStateAdapter())
+                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+                .create();
+        Gson adapters = StorageManager.getGson();
+        Type listType = new TypeToken<List<Order>>() {}.getType();
+
+        double[] reflectiveBest = {Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] adaptersBest = {Double.MAX_VALUE, Double.MAX_VALUE};
+        int bytes = 0;
+        for (int round = 0; round < rounds; round++) {
+            run(reflective, orders, listType, reflectiveBest);
+            bytes = run(adapters, orders, listType, adaptersBest);
+        }
+        // Best of all rounds, which filters out JIT warm-up and GC pauses
+        System.out.printf("%-12s %-14s %-14s %-10s%n", "codec", "encode ms", "decode ms", "bytes");
+        System.out.printf("%-12s %-14.1f %-14.1f %-10d%n", "reflective", reflectiveBest[0], reflectiveBest[1], bytes);
+        System.out.printf("%-12s %-14.1f %-14.1f %-10d%n", "adapters", adaptersBest[0], adaptersBest[1], bytes);
+
+        Order decorated = new Order("ORDER1", "2024-12-01", 21.5,
+                new ExtraCheeseDecorator(orders.get(1).getPizza()), "Pickup", "N/A");
+        Order roundTrip = adapters.fromJson(adapters.toJson(decorated), Order.class);
+        System.out.println("Decorated pizza after a round trip: " + roundTrip.getPizza().getClass().getSimpleName());
+    }
+
+    /**
+     * Encodes and decodes the orders once, keeping the best times seen in {@code best}.
+     *
+     * @return Length of the encoded JSON.
+     */
+    private static int run(Gson gson, List<Order> orders, Type listType, double[] best) {
+        long start = System.nanoTime();
+        String json = gson.toJson(orders, listType);
+        best[0] = Math.min(best[0], (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        List<Order> decoded = gson.fromJson(json, listType);
+        best[1] = Math.min(best[1], (System.nanoTime() - start) / 1e6);
+
+        if (decoded.size() != orders.size()) {
+            throw new IllegalStateException("Decoded " + decoded.size() + " of " + orders.size() + " orders");
+        }
+        return json.length();
+    }
+}
@@ -0,0 +1,108 @@
+package benchmark;
+
+import manager.OffHeapOrderCache;
+import manager.StorageManager;
+import model.Order;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compares holding recent orders as on-heap {@link Order} objects with holding them in the
+ * {@link OffHeapOrderCache}: heap retained, garbage collection time while the orders are held and
+ * other objects are allocated, and the cost of a lookup by id.
+ * <p>
+ * Usage: {@code OrderCacheBenchmark [orders] [cache MB]}; a small cache shows eviction.
+ */
+public class OrderCacheBenchmark {
+
+    private static final int CHURN_ROUNDS = 30;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        long cacheBytes = (args.length > 1 ? Long.parseLong(args[1]) : 256) << 20;
+
+        long before = usedMemory();
+        Map<String, Order> onHeap = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Order order = decoded(i);
+            onHeap.put(order.getOrderId(), order);
+        }
+        long onHeapBytes = usedMemory() - before;
+        long onHeapGc = churn();
+        double onHeapLookup = lookups(id -> onHeap.get(id), count);
+        onHeap.clear();
+
+        before = usedMemory();
+        OffHeapOrderCache cache = new OffHeapOrderCache(cacheBytes, OffHeapOrderCache.DEFAULT_SLAB_SIZE);
+        for (int i = 0; i < count; i++) {
+            cache.put(decoded(i));
+        }
+        long cacheHeapBytes = usedMemory() - before;
+        long cacheGc = churn();
+        double cacheLookup = lookups(cache::get, count);
+
+        System.out.printf("%-10s %-10s %-12s %-10s %-12s%n", "holder", "heap MB", "off-heap MB", "GC ms", "lookup us");
+        System.out.printf("%-10s %-10.1f %-12s %-10d %-12.2f%n", "HashMap", onHeapBytes / 1e6, "-", onHeapGc, onHeapLookup);
+        System.out.printf("%-10s %-10.1f %-12.1f %-10d %-12.2f%n", "off-heap", cacheHeapBytes / 1e6,
+                cache.memoryUsed() / 1e6, cacheGc, cacheLookup);
+        System.out.println("Cached orders: " + cache.size() + " of " + count
+                + ", list view size: " + cache.orders().size());
+    }
+
+    /**
+     * Builds a sample order with its own copy of each string, as after loading it from storage.
+     */
+    private static Order decoded(int i) {
+        return StorageManager.getGson().fromJson(StorageManager.getGson().toJson(BenchmarkData.sampleOrder(i)), Order.class);
+    }
+
+    /**
+     * Allocates short-lived garbage and full collections while the orders are held, and returns the
+     * total collector time spent.
+     */
+    private static long churn() {
+        long start = gcMillis();
+        List<Order> garbage = new ArrayList<>();
+        for (int round = 0; round < CHURN_ROUNDS; round++) {
+            garbage.clear();
+            for (int i = 0; i < 20_000; i++) {
+                garbage.add(BenchmarkData.sampleOrder(i));
+            }
+            if (round % 10 == 0) {
+                System.gc();
+            }
+        }
+        return gcMillis() - start;
+    }
+
+    private static double lookups(Function<String, Order> lookup, int count) {
+        int samples = Math.min(count, 100_000);
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            lookup.apply("ORDER" + (1_700_000_000_000L + (i * 7919L) % count)); // Null once evicted
+        }
+        return (System.nanoTime() - start) / 1e3 / samples;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import manager.OrderExporter;
+import model.Order;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares the CSV export path of {@link OrderExporter} (streamed orders, reused direct buffer,
+ * FileChannel) with collecting the orders into a list and writing one {@code String.format} line
+ * per order. Reports rows per second. Pass {@code stream} as the third argument to run only the
+ * streamed export, e.g. with a small {@code -Xmx} to show that its memory use does not grow with
+ * the row count.
+ * <p>
+ * Usage: {@code OrderExportBenchmark [orders] [rounds] [stream]}
+ */
+public class OrderExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path file = Files.createTempFile("orders", ".csv");
+
+        boolean streamOnly = args.length > 2 && args[2].equals("stream");
+        double formatBest = Double.MAX_VALUE;
+        double streamBest = Double.MAX_VALUE;
+        OrderExporter exporter = new OrderExporter();
+        for (int round = 0; round < rounds; round++) {
+            long start;
+            if (!streamOnly) {
+                start = System.nanoTime();
+                List<Order> orders = orders(count).collect(Collectors.toList());
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    for (Order order : orders) {
+                        out.write(String.format("%s,%s,%s,%.2f,%s,\"%s\",%s,%s%n", order.getOrderId(),
+                                order.getDate(), order.getCurrentStatus(), order.getTotalPrice(),
+                                order.getDeliveryOption(), order.getDeliveryAddress(), order.getPizza().getName(),
+                                order.getPizza().getSize()));
+                    }
+                }
+                formatBest = Math.min(formatBest, (System.nanoTime() - start) / 1e9);
+            }
+
+            start = System.nanoTime();
+            try (Stream<Order> orders = orders(count)) {
+                exporter.export(orders, file);
+            }
+            streamBest = Math.min(streamBest, (System.nanoTime() - start) / 1e9);
+        }
+        long bytes = Files.size(file);
+        Files.delete(file);
+
+        System.out.printf("%-16s %-14s%n", "export", "rows/s");
+        if (!streamOnly) {
+            System.out.printf("%-16s %-14.0f%n", "list + format", count / formatBest);
+        }
+        System.out.printf("%-16s %-14.0f%n", "streamed NIO", count / streamBest);
+        System.out.printf("CSV size: %.1f MB for %d orders%n", bytes / 1e6, count);
+    }
+
+    /**
+     * Generates the orders lazily, as {@code StorageManager.streamOrders} decodes them.
+     */
+    private static Stream<Order> orders(int count) {
+        return IntStream.range(0, count).mapToObj(BenchmarkData::sampleOrder);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import manager.StorageManager;
+import model.ArchivedOrder;
+import model.Order;
+import model.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained per order by {@link Order} objects, as loaded from storage, and by
+ * their compact {@link ArchivedOrder} copies.
+ * <p>
+ * The orders go through a JSON round trip first so that, as after a real load, every order has its
+ * own copy of each string. Run with a fixed heap (e.g. {@code -Xms512m -Xmx512m}) for steadier
+ * numbers.
+ * <p>
+ * Usage: {@code OrderFootprintBenchmark [orders]}
+ */
+public class OrderFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        long before = usedMemory();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String json = StorageManager.getGson().toJson(BenchmarkData.sampleOrder(i));
+            orders.add(StorageManager.getGson().fromJson(json, Order.class));
+        }
+        long orderBytes = usedMemory() - before;
+
+        before = usedMemory();
+        StringDictionary dictionary = new StringDictionary();
+        List<ArchivedOrder> archived = new ArrayList<>(count);
+        for (Order order : orders) {
+            archived.add(ArchivedOrder.of(order, dictionary));
+        }
+        long archivedBytes = usedMemory() - before;
+
+        for (int i = 0; i < count; i++) {
+            Order restored = archived.get(i).toOrder();
+            if (!restored.toString().equals(orders.get(i).toString())) {
+                throw new IllegalStateException("Order " + i + " changed: " + restored + " vs " + orders.get(i));
+            }
+        }
+
+        System.out.printf("%-14s %-12s %-10s%n", "form", "heap MB", "bytes/order");
+        System.out.printf("%-14s %-12.1f %-10d%n", "Order", orderBytes / 1e6, orderBytes / count);
+        System.out.printf("%-14s %-12.1f %-10d%n", "ArchivedOrder", archivedBytes / 1e6, archivedBytes / count);
+        System.out.println("Dictionary strings: " + dictionary.size());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
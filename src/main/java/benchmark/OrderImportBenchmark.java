@@ -0,0 +1,71 @@
+package benchmark;
+
+import manager.OrderImporter;
+import manager.SqlOrderRepository;
+import manager.StorageManager;
+import model.Order;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Imports a generated JSON-lines file of orders with one parser thread and with one per CPU, and
+ * reports rows per second. One row in every thousand is malformed to exercise error reporting.
+ * Each run imports into its own H2 database in a temporary directory, deleted afterwards, so the
+ * application's order history is never touched.
+ * <p>
+ * Usage: {@code OrderImportBenchmark [orders]}
+ */
+public class OrderImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        Path file = Files.createTempFile("orders", ".jsonl");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                Order order = BenchmarkData.sampleOrder(i);
+                if (order.getPizza().getToppings().isEmpty()) {
+                    order.getPizza().getToppings().add("Olives"); // The validator chain requires a topping
+                }
+                out.write(i % 1000 == 999 ? "{\"orderId\":\"BROKEN\",\"date\":" : StorageManager.getGson().toJson(order));
+                out.newLine();
+            }
+        }
+        System.out.printf("Generated %d orders, %.1f MB%n", count, Files.size(file) / 1e6);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        run("1 thread", new ForkJoinPool(1), file);
+        run("pool of " + threads, new ForkJoinPool(threads), file);
+        Files.delete(file);
+        System.exit(0);
+    }
+
+    private static void run(String label, ForkJoinPool pool, Path file) throws IOException {
+        Path directory = Files.createTempDirectory("order-import-bench");
+        SqlOrderRepository repository = new SqlOrderRepository("jdbc:h2:file:" + directory.resolve("bench"));
+        try {
+            OrderImporter importer = new OrderImporter(repository, pool,
+                    OrderImporter.DEFAULT_CHUNK_SIZE, OrderImporter.DEFAULT_BATCH_SIZE);
+            OrderImporter.Report report = importer.importFile(file);
+            System.out.printf("%-12s %s%n", label, report);
+            if (!report.getErrors().isEmpty()) {
+                System.out.printf("%-12s first error: %s%n", "", report.getErrors().get(0));
+            }
+        } finally {
+            repository.close();
+            pool.shutdown();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
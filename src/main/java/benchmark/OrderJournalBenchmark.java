@@ -0,0 +1,57 @@
+package benchmark;
+
+import manager.OrderJournal;
+import manager.StorageManager;
+import model.Order;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compares the cost of saving one more order with the order journal against rewriting the whole
+ * order file, as history grows. Journal throughput should stay flat; the full rewrite slows down.
+ * <p>
+ * Usage: {@code OrderJournalBenchmark [rounds] [ordersPerRound]}
+ */
+public class OrderJournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int perRound = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Path dir = Files.createTempDirectory("order-journal-bench");
+        String legacyFile = dir.resolve("orders.json").toString();
+
+        System.out.printf("%-10s %-18s %-18s%n", "history", "journal orders/s", "rewrite orders/s");
+        List<Order> history = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(dir.resolve("journal"), StorageManager.getGson())) {
+            for (int round = 0; round < rounds; round++) {
+                List<Order> batch = BenchmarkData.sampleOrders(round * perRound, perRound);
+
+                long start = System.nanoTime();
+                CompletableFuture<Void> lastWrite = null;
+                for (Order order : batch) {
+                    lastWrite = journal.append(order);
+                }
+                lastWrite.join(); // Measure until the records are on disk
+                double journalRate = perRound / ((System.nanoTime() - start) / 1e9);
+
+                // The legacy path rewrites the full list for every order; sample 50 saves to keep it bounded.
+                int samples = Math.min(50, perRound);
+                history.addAll(batch.subList(0, batch.size() - samples));
+                start = System.nanoTime();
+                for (Order order : batch.subList(batch.size() - samples, batch.size())) {
+                    history.add(order);
+                    StorageManager.saveDataToFileAsync(history, legacyFile).join();
+                }
+                double rewriteRate = samples / ((System.nanoTime() - start) / 1e9);
+
+                System.out.printf("%-10d %-18.0f %-18.0f%n", history.size(), journalRate, rewriteRate);
+            }
+            System.out.println("Replayed " + journal.replay().size() + " orders from the journal.");
+        }
+    }
+}
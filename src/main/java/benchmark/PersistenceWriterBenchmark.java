@@ -0,0 +1,76 @@
+package benchmark;
+
+import manager.PersistenceWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates bursty order load from several threads and compares synchronous
+ * open/write/fsync/close per save with the group-commit {@link PersistenceWriter}.
+ * <p>
+ * Usage: {@code PersistenceWriterBenchmark [threads] [savesPerThread]}
+ */
+public class PersistenceWriterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int savesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Path dir = Files.createTempDirectory("persistence-writer-bench");
+        byte[] record = "{\"orderId\":\"ORDER1700000000000\",\"totalPrice\":19.5}\n".getBytes(StandardCharsets.UTF_8);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        Path syncFile = dir.resolve("sync.log");
+        long start = System.nanoTime();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < savesPerThread; i++) {
+                    try (FileChannel channel = FileChannel.open(syncFile, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        channel.write(ByteBuffer.wrap(record));
+                        channel.force(false);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        double syncMillis = (System.nanoTime() - start) / 1e6;
+        int saves = threads * savesPerThread;
+        System.out.printf("synchronous:  %d saves, %d fsyncs, %.0f ms%n", saves, saves, syncMillis);
+
+        PersistenceWriter writer = PersistenceWriter.getInstance();
+        Path groupFile = dir.resolve("group.log");
+        start = System.nanoTime();
+        tasks.clear();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(pool.submit(() -> {
+                CompletableFuture<Void> last = null;
+                for (int i = 0; i < savesPerThread; i++) {
+                    last = writer.append(groupFile, record);
+                }
+                return last.join();
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        double groupMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("group commit: %d saves, %d fsyncs, %.0f ms%n",
+                writer.getRequestCount(), writer.getSyncCount(), groupMillis);
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,120 @@
+package benchmark;
+
+import model.Order;
+import model.Pizza;
+import model.Promotion;
+import model.PromotionCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates the conditions of many promotions against one order, as
+ * {@code PromotionManager.getApplicablePromotions} does for the payment screen. Compares:
+ * <ul>
+ *   <li>the old string comparison with {@code "TOPPING:" + pizza.getToppings()}, which topping
+ *       promotions never matched;</li>
+ *   <li>interpreting each condition string per evaluation, comparing names with
+ *       {@code equalsIgnoreCase};</li>
+ *   <li>{@link PromotionCondition}s compiled once, with the order reduced to ids once.</li>
+ * </ul>
+ * Usage: {@code PromotionConditionBenchmark [promotions] [rounds]}; reports the median round.
+ */
+public class PromotionConditionBenchmark {
+
+    private static final String[] CONDITIONS = {
+            "ORDER", "TOPPING:Pineapple", "TOPPING:Olives", "SIZE:Large", "CRUST:Thin AND MIN:15",
+            "TOPPING:Bacon AND TOPPING:Onions", "SIZE:Small OR SIZE:Medium", "CHEESE:Vegan AND SAUCE:Garlic",
+            "TOPPING:Mushrooms AND SIZE:Large OR MIN:40", "MIN:12.5"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 201;
+        List<Promotion> promotions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            promotions.add(new Promotion("CODE" + i, "Promotion " + i, 5, true, null, null,
+                    CONDITIONS[i % CONDITIONS.length]));
+        }
+        Order order = BenchmarkData.sampleOrder(47); // Large, thin, five toppings, $17.50
+
+        long[] oldTimes = new long[rounds];
+        long[] interpretedTimes = new long[rounds];
+        long[] compiledTimes = new long[rounds];
+        int oldMatches = 0;
+        int interpretedMatches = 0;
+        int compiledMatches = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            oldMatches = 0;
+            String orderCondition = "TOPPING:" + order.getPizza().getToppings();
+            for (Promotion promo : promotions) {
+                if (promo.getCondition().equalsIgnoreCase("ORDER") || promo.getCondition().equalsIgnoreCase(orderCondition)) {
+                    oldMatches++;
+                }
+            }
+            oldTimes[round] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            interpretedMatches = 0;
+            for (Promotion promo : promotions) {
+                if (interpret(promo.getCondition(), order)) {
+                    interpretedMatches++;
+                }
+            }
+            interpretedTimes[round] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            compiledMatches = 0;
+            PromotionCondition.Facts facts = PromotionCondition.Facts.of(order);
+            for (Promotion promo : promotions) {
+                if (promo.getCompiledCondition().matches(facts)) {
+                    compiledMatches++;
+                }
+            }
+            compiledTimes[round] = System.nanoTime() - start;
+        }
+
+        System.out.printf("%d promotions against one order%n", count);
+        System.out.printf("%-20s %-10s %-12s %-8s%n", "evaluation", "us/order", "ns/promo", "matches");
+        print("old string compare", oldTimes, count, oldMatches);
+        print("interpreted", interpretedTimes, count, interpretedMatches);
+        print("compiled", compiledTimes, count, compiledMatches);
+    }
+
+    private static void print(String name, long[] nanos, int count, int matches) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        System.out.printf("%-20s %-10.1f %-12.1f %-8d%n", name, median / 1e3, (double) median / count, matches);
+    }
+
+    /**
+     * Evaluates a condition string directly, with the same meaning as {@link PromotionCondition}.
+     */
+    private static boolean interpret(String condition, Order order) {
+        Pizza pizza = order.getPizza();
+        for (String group : condition.split("(?i)\\s+OR\\s+")) {
+            boolean all = true;
+            for (String term : group.split("(?i)\\s+AND\\s+")) {
+                String[] parts = term.split(":", 2);
+                String value = parts.length > 1 ? parts[1].trim() : "";
+                all &= switch (parts[0].trim().toUpperCase()) {
+                    case "ORDER" -> true;
+                    case "TOPPING" -> pizza.getToppings().stream().anyMatch(value::equalsIgnoreCase);
+                    case "SIZE" -> pizza.getSize().toLowerCase().startsWith(value.toLowerCase());
+                    case "CRUST" -> pizza.getCrust().equalsIgnoreCase(value);
+                    case "SAUCE" -> pizza.getSauce().equalsIgnoreCase(value);
+                    case "CHEESE" -> pizza.getCheese().equalsIgnoreCase(value);
+                    case "MIN" -> order.getTotalPrice() >= Double.parseDouble(value);
+                    default -> false;
+                };
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import manager.PromotionFile;
+import model.Promotion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares saving and loading promotions with Java serialization (the old promotions.dat) and
+ * with the {@link PromotionFile} format, including the lazy load that leaves inactive and expired
+ * promotions undecoded. Also checks that a Java-serialized file is read back through the upgrade
+ * path.
+ * <p>
+ * Usage: {@code PromotionFileBenchmark [promotions] [rounds]}; half the sample promotions have
+ * expired. Reports the median of the rounds.
+ */
+public class PromotionFileBenchmark {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 11;
+        LocalDate today = LocalDate.now();
+        List<Promotion> promotions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate start = today.minusDays(i % 2 == 0 ? 90 : 10);
+            promotions.add(new Promotion("CODE" + i, "Promotion number " + i, i % 20, i % 10 != 0,
+                    start, start.plusDays(60), i % 3 == 0 ? "TOPPING:Olives" : "ORDER"));
+        }
+        Path directory = Files.createTempDirectory("promotions");
+        Path legacyFile = directory.resolve("legacy.dat");
+        Path file = directory.resolve("promotions.dat");
+
+        long[] serialSave = new long[rounds];
+        long[] serialLoad = new long[rounds];
+        long[] binarySave = new long[rounds];
+        long[] binaryLoad = new long[rounds];
+        int live = 0;
+        for (int round = 0; round < rounds; round++) {
+            System.gc(); // Each measurement starts on a clean heap, not with the other format's garbage
+            long start = System.nanoTime();
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(legacyFile)))) {
+                out.writeObject(promotions);
+            }
+            serialSave[round] = System.nanoTime() - start;
+
+            System.gc();
+            start = System.nanoTime();
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacyFile)))) {
+                in.readObject();
+            }
+            serialLoad[round] = System.nanoTime() - start;
+
+            System.gc();
+            start = System.nanoTime();
+            Files.write(file, PromotionFile.encode(promotions, new ArrayList<>()));
+            binarySave[round] = System.nanoTime() - start;
+
+            System.gc();
+            start = System.nanoTime();
+            live = PromotionFile.read(file, today).getPromotions().size();
+            binaryLoad[round] = System.nanoTime() - start;
+        }
+
+        System.out.printf("%d promotions, %d decoded at load (rest inactive or expired)%n", count, live);
+        System.out.printf("%-22s %-10s %-10s %-10s%n", "format", "save ms", "load ms", "file KB");
+        System.out.printf("%-22s %-10.1f %-10.1f %-10d%n", "Java serialization", median(serialSave),
+                median(serialLoad), Files.size(legacyFile) / 1024);
+        System.out.printf("%-22s %-10.1f %-10.1f %-10d%n", "PromotionFile", median(binarySave),
+                median(binaryLoad), Files.size(file) / 1024);
+
+        PromotionFile.Contents upgraded = PromotionFile.read(legacyFile, today);
+        System.out.println("Legacy file read as legacy: " + upgraded.isLegacy() + ", promotions: "
+                + upgraded.getPromotions().size());
+    }
+
+    /**
+     * Median of the timings in milliseconds, which keeps warm-up rounds and collections from
+     * dominating.
+     */
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
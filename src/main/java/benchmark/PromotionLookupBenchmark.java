@@ -0,0 +1,89 @@
+package benchmark;
+
+import model.Promotion;
+import model.PromotionIndex;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares validating promo codes by scanning the promotion list (the old
+ * {@code PromotionManager.validatePromoCode}: {@code isCurrentlyActive()} and
+ * {@code equalsIgnoreCase} per entry) with a {@link PromotionIndex} lookup checked against a cached
+ * date, as {@code PromotionManager} now does. Codes are looked up in a different case from the one
+ * they were created with. Reports time and heap allocated per validation.
+ * <p>
+ * Usage: {@code PromotionLookupBenchmark [codes] [lookups]}
+ */
+public class PromotionLookupBenchmark {
+
+    public static void main(String[] args) {
+        int codes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        LocalDate today = LocalDate.now();
+        List<Promotion> promotions = new ArrayList<>(codes);
+        for (int i = 0; i < codes; i++) {
+            // Per-customer codes without dates, partner codes running around today
+            promotions.add(i % 4 == 0
+                    ? new Promotion("Partner" + i, "Partner deal", 5, true, today.minusDays(30), today.plusDays(30), "ORDER")
+                    : new Promotion("Cust" + i, "Customer code", 2, true, null, null, "ORDER"));
+        }
+        long start = System.nanoTime();
+        PromotionIndex index = new PromotionIndex(promotions);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+
+        String[] queries = new String[4096];
+        Random random = new Random(42);
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = promotions.get(random.nextInt(codes)).getPromoCode().toLowerCase(Locale.ROOT);
+        }
+
+        int scanLookups = Math.max(1, Math.min(lookups, 200_000_000 / codes)); // Keep the scan to seconds
+        int found = 0;
+        long allocated = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < scanLookups; i++) {
+            found += scan(promotions, queries[i % queries.length]) != null ? 1 : 0;
+        }
+        double scanNanos = (double) (System.nanoTime() - start) / scanLookups;
+        double scanBytes = (double) (allocatedBytes() - allocated) / scanLookups;
+
+        allocated = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            Promotion promotion = index.get(queries[i % queries.length]);
+            found += promotion != null && promotion.isActiveOn(today) ? 1 : 0;
+        }
+        double indexNanos = (double) (System.nanoTime() - start) / lookups;
+        double indexBytes = (double) (allocatedBytes() - allocated) / lookups;
+
+        System.out.printf("%d promotions, index built in %.0f ms%n", codes, buildMs);
+        System.out.printf("%-8s %-10s %-14s %-12s%n", "lookup", "lookups", "us/validate", "bytes/validate");
+        System.out.printf("%-8s %-10d %-14.3f %-12.0f%n", "scan", scanLookups, scanNanos / 1e3, scanBytes);
+        System.out.printf("%-8s %-10d %-14.3f %-12.0f%n", "index", lookups, indexNanos / 1e3, indexBytes);
+        System.out.println("Valid: " + found + " of " + (scanLookups + lookups));
+    }
+
+    /**
+     * The promotion list scan formerly done by {@code PromotionManager.validatePromoCode}.
+     */
+    private static Promotion scan(List<Promotion> promotions, String promoCode) {
+        for (Promotion promo : promotions) {
+            if (promo.isCurrentlyActive() && promo.getPromoCode().equalsIgnoreCase(promoCode)) {
+                if (promo.getCondition().equalsIgnoreCase("ORDER")) {
+                    return promo;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import manager.LocalDateAdapter;
+import manager.OrderStateAdapter;
+import manager.PersistenceWriter;
+import manager.StorageManager;
+import model.Order;
+import model.OrderState;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Compares order JSON written with full strings (the reflective mapping) with JSON that refers to
+ * menu choices by their shared dictionary id: file size, parse time, and heap retained by the
+ * decoded orders. Writes {@code strings.dict} in the working directory.
+ * <p>
+ * Usage: {@code SharedStringsBenchmark [orders] [rounds]}
+ */
+public class SharedStringsBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<Order> orders = BenchmarkData.sampleOrders(0, count);
+        Gson fullStrings = new GsonBuilder()
+                .registerTypeHierarchyAdapter(OrderState.class, new OrderStateAdapter())
+                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+                .create();
+        Gson sharedStrings = StorageManager.getGson();
+        Type listType = new TypeToken<List<Order>>() {}.getType();
+
+        sharedStrings.toJson(orders, listType); // Adds the strings to the dictionary
+        PersistenceWriter.getInstance().flush(); // Ids are only written once their entries are on disk
+        String fullJson = fullStrings.toJson(orders, listType);
+        String sharedJson = sharedStrings.toJson(orders, listType);
+
+        double fullBest = Double.MAX_VALUE;
+        double sharedBest = Double.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            fullStrings.fromJson(fullJson, listType);
+            fullBest = Math.min(fullBest, (System.nanoTime() - start) / 1e6);
+            start = System.nanoTime();
+            sharedStrings.fromJson(sharedJson, listType);
+            sharedBest = Math.min(sharedBest, (System.nanoTime() - start) / 1e6);
+        }
+
+        long before = usedMemory();
+        List<Order> fullOrders = fullStrings.fromJson(fullJson, listType);
+        long fullHeap = usedMemory() - before;
+        before = usedMemory();
+        List<Order> sharedOrders = sharedStrings.fromJson(sharedJson, listType);
+        long sharedHeap = usedMemory() - before;
+        if (!fullOrders.get(count - 1).toString().equals(sharedOrders.get(count - 1).toString())) {
+            throw new IllegalStateException("Decoded orders differ");
+        }
+
+        System.out.printf("%-14s %-12s %-12s %-10s%n", "strings", "JSON KB", "parse ms", "heap MB");
+        System.out.printf("%-14s %-12d %-12.1f %-10.1f%n", "full", fullJson.length() / 1024, fullBest, fullHeap / 1e6);
+        System.out.printf("%-14s %-12d %-12.1f %-10.1f%n", "dictionary", sharedJson.length() / 1024, sharedBest,
+                sharedHeap / 1e6);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
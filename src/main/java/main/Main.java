@@ -1,10 +1,82 @@
 package main;
 
+import manager.PersistenceWriter;
+import manager.SnapshotManager;
+import manager.StorageManager;
+import model.CommandInvoker;
+import model.ExportOrdersCommand;
+import model.ImportOrdersCommand;
 import view.LoginScreen;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runCommand(args)); // Batch mode: no windows
+        }
         System.out.println("Starting Pizza Ordering System...");
+        SnapshotManager.startPeriodicSnapshots(Duration.ofMinutes(5)); // Keeps restarts fast
+        startOrderStorage(Period.parse(System.getProperty("orders.archiveAfter", "P1Y")));
         new LoginScreen(); // Assuming Dashboard is the starting screen
     }
+
+    // Run a bulk command given on the command line, e.g. from a nightly job:
+    //   --import <file>                 import a JSON-lines or CSV file of orders
+    //   --export <from> <to> <file>     export the orders of those days (yyyy-mm-dd) as CSV
+    //   --export <day> <file>           export one day's orders as CSV
+    // Returns the process exit status
+    private static int runCommand(String[] args) {
+        CommandInvoker invoker = new CommandInvoker();
+        try {
+            switch (args[0]) {
+                case "--import" -> {
+                    if (args.length != 2) {
+                        return usage();
+                    }
+                    ImportOrdersCommand command = new ImportOrdersCommand(Paths.get(args[1]));
+                    invoker.executeCommand(command);
+                    return command.getReport() != null ? 0 : 1;
+                }
+                case "--export" -> {
+                    if (args.length != 3 && args.length != 4) {
+                        return usage();
+                    }
+                    LocalDate from = LocalDate.parse(args[1]);
+                    LocalDate to = args.length == 4 ? LocalDate.parse(args[2]) : from;
+                    ExportOrdersCommand command = new ExportOrdersCommand(from, to, Paths.get(args[args.length - 1]));
+                    invoker.executeCommand(command);
+                    return command.getExported() >= 0 ? 0 : 1;
+                }
+                default -> {
+                    return usage();
+                }
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("Invalid date: " + e.getParsedString());
+            return usage();
+        } finally {
+            PersistenceWriter.getInstance().flush(); // Imported orders are on disk before exit
+        }
+    }
+
+    private static int usage() {
+        System.err.println("Usage: Main [--import <file> | --export <from> [<to>] <file>]");
+        return 2;
+    }
+
+    // Open the order stores, then move old orders to the compressed archive, in the background so
+    // neither the replay nor the archiving runs on the EDT
+    private static void startOrderStorage(Period age) {
+        Thread storage = new Thread(() -> {
+            StorageManager.openOrderStorage();
+            StorageManager.archiveOrdersOlderThan(age);
+        }, "order-storage");
+        storage.setDaemon(true);
+        storage.start();
+    }
 }
@@ -0,0 +1,151 @@
+package manager;
+
+import model.ExtraCheeseDecorator;
+import model.Order;
+import model.Pizza;
+import model.PizzaDecorator;
+import model.Promotion;
+import model.SpecialPackagingDecorator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of orders, pizzas and promotions using {@link DataOutput}.
+ * <p>
+ * Unlike the JSON form, decorated pizzas keep their decorators: each pizza starts with a kind
+ * byte, and decorators are followed by the pizza they wrap.
+ */
+public final class BinaryCodec {
+
+    private static final byte PLAIN_PIZZA = 0;
+    private static final byte EXTRA_CHEESE = 1;
+    private static final byte SPECIAL_PACKAGING = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private BinaryCodec() {
+    }
+
+    public static void writeOrder(DataOutput out, Order order) throws IOException {
+        out.writeUTF(order.getOrderId());
+        writeString(out, order.getDate());
+        out.writeDouble(order.getTotalPrice());
+        out.writeBoolean(order.getPizza() != null);
+        if (order.getPizza() != null) {
+            writePizza(out, order.getPizza());
+        }
+        writeString(out, order.getDeliveryOption());
+        writeString(out, order.getDeliveryAddress());
+        out.writeUTF(order.getCurrentStatus());
+        writeString(out, order.getFeedback());
+        out.writeByte(order.getRating());
+        out.writeBoolean(order.getAppliedPromotion() != null);
+        if (order.getAppliedPromotion() != null) {
+            writePromotion(out, order.getAppliedPromotion());
+        }
+    }
+
+    public static Order readOrder(DataInput in) throws IOException {
+        String orderId = in.readUTF();
+        String date = readString(in);
+        double totalPrice = in.readDouble();
+        Pizza pizza = in.readBoolean() ? readPizza(in) : null;
+        Order order = new Order(orderId, date, totalPrice, pizza, readString(in), readString(in));
+        order.setState(OrderStateAdapter.fromStatus(in.readUTF()));
+        String feedback = readString(in);
+        order.setFeedback(feedback != null ? feedback : "");
+        int rating = in.readByte();
+        if (rating > 0) {
+            order.setRating(rating);
+        }
+        if (in.readBoolean()) {
+            order.setAppliedPromotion(readPromotion(in));
+        }
+        return order;
+    }
+
+    public static void writePizza(DataOutput out, Pizza pizza) throws IOException {
+        if (pizza instanceof PizzaDecorator) {
+            out.writeByte(pizza instanceof ExtraCheeseDecorator ? EXTRA_CHEESE : SPECIAL_PACKAGING);
+            writePizza(out, ((PizzaDecorator) pizza).getDecoratedPizza());
+            return;
+        }
+        out.writeByte(PLAIN_PIZZA);
+        writeString(out, pizza.getName());
+        writeString(out, pizza.getSize());
+        writeString(out, pizza.getCrust());
+        writeString(out, pizza.getSauce());
+        writeString(out, pizza.getCheese());
+        List<String> toppings = pizza.getToppings();
+        out.writeShort(toppings != null ? toppings.size() : -1);
+        if (toppings != null) {
+            for (String topping : toppings) {
+                out.writeUTF(topping);
+            }
+        }
+        out.writeDouble(pizza.getPrice());
+    }
+
+    public static Pizza readPizza(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == EXTRA_CHEESE) {
+            return new ExtraCheeseDecorator(readPizza(in));
+        }
+        if (kind == SPECIAL_PACKAGING) {
+            return new SpecialPackagingDecorator(readPizza(in));
+        }
+        Pizza.PizzaBuilder builder = new Pizza.PizzaBuilder()
+                .setName(readString(in))
+                .setSize(readString(in))
+                .setCrust(readString(in))
+                .setSauce(readString(in))
+                .setCheese(readString(in));
+        int toppingCount = in.readShort();
+        if (toppingCount >= 0) {
+            List<String> toppings = new ArrayList<>(toppingCount);
+            for (int i = 0; i < toppingCount; i++) {
+                toppings.add(in.readUTF());
+            }
+            builder.setToppings(toppings);
+        }
+        return builder.setPrice(in.readDouble()).build();
+    }
+
+    public static void writePromotion(DataOutput out, Promotion promotion) throws IOException {
+        writeString(out, promotion.getPromoCode());
+        writeString(out, promotion.getPromoName());
+        out.writeDouble(promotion.getDiscountAmount());
+        out.writeBoolean(promotion.isActive());
+        out.writeLong(promotion.getStartDate() != null ? promotion.getStartDate().toEpochDay() : NO_DATE);
+        out.writeLong(promotion.getEndDate() != null ? promotion.getEndDate().toEpochDay() : NO_DATE);
+        writeString(out, promotion.getCondition());
+    }
+
+    public static Promotion readPromotion(DataInput in) throws IOException {
+        String promoCode = readString(in);
+        String promoName = readString(in);
+        double discountAmount = in.readDouble();
+        boolean isActive = in.readBoolean();
+        long startDay = in.readLong();
+        long endDay = in.readLong();
+        return new Promotion(promoCode, promoName, discountAmount, isActive,
+                startDay == NO_DATE ? null : LocalDate.ofEpochDay(startDay),
+                endDay == NO_DATE ? null : LocalDate.ofEpochDay(endDay),
+                readString(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
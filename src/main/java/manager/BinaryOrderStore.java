@@ -0,0 +1,416 @@
+package manager;
+
+import model.MenuCatalog;
+import model.Order;
+import model.Pizza;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Memory-mapped order store with fixed-width binary records.
+ * <p>
+ * Each order occupies one {@value #RECORD_SIZE}-byte record:
+ * <pre>
+ *  0  byte[24] order id (ASCII, zero padded)
+ * 24  int      date as epoch day ({@link Integer#MIN_VALUE} if unknown)
+ * 28  long     total price in cents
+ * 36  byte     size, crust, sauce, cheese ids ({@link MenuCatalog})
+ * 40  int      topping bitmask
+ * 44  byte     delivery option id
+ * 45  byte     status id
+ * 46  byte     1 if the record holds the whole order ({@link #findOrder(String)} returns it)
+ * 47  byte     reserved
+ * 48  int      delivery address reference (string table, -1 for none)
+ * 52  int      pizza name reference (string table, -1 for none)
+ * 56  int      pizza price in cents
+ * 60  byte     rating
+ * 61  byte[3]  reserved
+ * </pre>
+ * Addresses and pizza names live in an append-only string table next to the data file, appended
+ * through the {@link PersistenceWriter} so that storing an order never writes files on the
+ * caller's thread. An in-memory index from order id to record slot is built from the id column
+ * when the store is opened, so {@link #findOrder(String)} is a hash lookup plus one record decode.
+ * <p>
+ * Feedback text, applied promotions, decorators and choices that are not on the menu are not
+ * kept; this store is meant for order history and reporting. A record is marked exact only when
+ * none of those apply, and {@link #findOrder(String)} returns only exact records, so the caller
+ * reads any other order from the journal. {@link #forEach(Consumer)} decodes every record as a
+ * summary.
+ */
+public class BinaryOrderStore implements Closeable {
+
+    public static final int RECORD_SIZE = 64;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x505A4F52; // "PZOR"
+    private static final int VERSION = 1;
+    private static final int ID_LENGTH = 24;
+    private static final int INITIAL_CAPACITY = 1024; // Records mapped when a new file is created
+
+    private final FileChannel channel;
+    private final Path stringTable;
+    private final PersistenceWriter writer = PersistenceWriter.getInstance();
+    private volatile boolean stringTableFailed; // An append failed, so later entries may sit one place early
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    /**
+     * Opens (or creates) a binary order store.
+     *
+     * @param dataFile Path of the record file; the string table is stored beside it.
+     * @throws IOException If the files cannot be opened or are not order stores.
+     */
+    public BinaryOrderStore(Path dataFile) throws IOException {
+        stringTable = Paths.get(dataFile + ".strings");
+        writer.flush(); // Read our own queued string table appends
+        if (Files.exists(stringTable)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stringTable)))) {
+                while (true) {
+                    String value;
+                    try {
+                        value = in.readUTF();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    stringRefs.put(value, strings.size());
+                    strings.add(value);
+                }
+            }
+        }
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, 0);
+        } else {
+            map((int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE));
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(dataFile + " is not a binary order store");
+            }
+            count = (int) buffer.getLong(8);
+        }
+        for (int slot = 0; slot < count; slot++) {
+            slots.put(readId(slot), slot);
+        }
+    }
+
+    /**
+     * Converts an existing orders.json file into binary records.
+     *
+     * @param ordersJson Path of a JSON array of orders.
+     * @param store      Store to write into.
+     * @return Number of orders converted.
+     * @throws IOException If a record cannot be written.
+     */
+    public static int importJson(String ordersJson, BinaryOrderStore store) throws IOException {
+        int imported = 0;
+        try (Stream<Order> orders = StorageManager.streamDataFromFile(ordersJson, Order.class)) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                store.put(order);
+                imported++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        store.flush();
+        return imported;
+    }
+
+    /**
+     * Checks whether an order id fits in a record's id column: ASCII only, so that no two ids
+     * share a record, and at most {@value #ID_LENGTH} characters.
+     */
+    public static boolean canStore(String orderId) {
+        return orderId != null && orderId.length() <= ID_LENGTH
+                && StandardCharsets.US_ASCII.newEncoder().canEncode(orderId);
+    }
+
+    /**
+     * Stores an order, overwriting the existing record if the id is already present.
+     *
+     * @param order Order to store.
+     * @throws IOException If the file cannot be grown.
+     * @throws IllegalArgumentException If the id does not pass {@link #canStore(String)}.
+     */
+    public synchronized void put(Order order) throws IOException {
+        if (!canStore(order.getOrderId())) {
+            throw new IllegalArgumentException("Order id is not ASCII or longer than " + ID_LENGTH
+                    + " characters: " + order.getOrderId());
+        }
+        byte[] id = order.getOrderId().getBytes(StandardCharsets.US_ASCII);
+        if (stringTableFailed) {
+            rewriteStringTable();
+        }
+        Integer existing = slots.get(order.getOrderId());
+        int slot = existing != null ? existing : count;
+        if (slot >= capacity) {
+            map(capacity * 2);
+        }
+
+        Pizza pizza = order.getPizza();
+        int base = HEADER_SIZE + slot * RECORD_SIZE;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            buffer.put(base + i, i < id.length ? id[i] : 0);
+        }
+        buffer.putInt(base + 24, epochDay(order.getDate()));
+        buffer.putLong(base + 28, Math.round(order.getTotalPrice() * 100));
+        buffer.put(base + 36, pizza != null ? MenuCatalog.idOf(MenuCatalog.SIZES, pizza.getSize()) : 0);
+        buffer.put(base + 37, pizza != null ? MenuCatalog.idOf(MenuCatalog.CRUSTS, pizza.getCrust()) : 0);
+        buffer.put(base + 38, pizza != null ? MenuCatalog.idOf(MenuCatalog.SAUCES, pizza.getSauce()) : 0);
+        buffer.put(base + 39, pizza != null ? MenuCatalog.idOf(MenuCatalog.CHEESES, pizza.getCheese()) : 0);
+        buffer.putInt(base + 40, pizza != null ? MenuCatalog.toppingMask(pizza.getToppings()) : 0);
+        buffer.put(base + 44, MenuCatalog.idOf(MenuCatalog.DELIVERY_OPTIONS, order.getDeliveryOption()));
+        buffer.put(base + 45, MenuCatalog.idOf(MenuCatalog.ORDER_STATUSES, order.getCurrentStatus()));
+        int address = stringRef(order.getDeliveryAddress());
+        int name = pizza != null ? stringRef(pizza.getName()) : -1;
+        buffer.putInt(base + 48, address);
+        buffer.putInt(base + 52, name);
+        buffer.putInt(base + 56, pizza != null ? (int) Math.round(pizza.getPrice() * 100) : 0);
+        buffer.put(base + 60, (byte) order.getRating());
+        boolean exact = isRepresentable(order)
+                && Objects.equals(string(address), order.getDeliveryAddress())
+                && Objects.equals(string(name), pizza.getName());
+        buffer.put(base + 46, (byte) (exact ? 1 : 0));
+
+        if (existing == null) {
+            slots.put(order.getOrderId(), slot);
+            count++;
+            buffer.putLong(8, count);
+        }
+    }
+
+    /**
+     * Finds an order by id without scanning or parsing other records.
+     *
+     * @param orderId Order id.
+     * @return The order, or null if it is not stored or its record is not exact; the journal
+     * holds those orders.
+     */
+    public synchronized Order findOrder(String orderId) {
+        Integer slot = slots.get(orderId);
+        return slot != null && isExact(slot) ? readOrder(slot) : null;
+    }
+
+    /**
+     * Decodes every stored order in record order, as a summary: what the record cannot hold is
+     * missing (see the class description).
+     *
+     * @param consumer Receives each order.
+     */
+    public synchronized void forEach(Consumer<Order> consumer) {
+        for (int slot = 0; slot < count; slot++) {
+            consumer.accept(readOrder(slot));
+        }
+    }
+
+    /**
+     * Sums the total price of all orders placed on or between two dates, reading only the date
+     * and price columns of each record.
+     */
+    public synchronized long sumTotalCents(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        long total = 0;
+        for (int slot = 0; slot < count; slot++) {
+            int base = HEADER_SIZE + slot * RECORD_SIZE;
+            int day = buffer.getInt(base + 24);
+            if (day >= fromDay && day <= toDay) {
+                total += buffer.getLong(base + 28);
+            }
+        }
+        return total;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Writes mapped records and the string table to disk.
+     */
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Tells whether {@link #readOrder} gives back exactly this order.
+     */
+    private static boolean isRepresentable(Order order) {
+        Pizza pizza = order.getPizza();
+        return pizza != null && pizza.getClass() == Pizza.class // Decorators are not kept
+                && isChoice(MenuCatalog.SIZES, pizza.getSize())
+                && isChoice(MenuCatalog.CRUSTS, pizza.getCrust())
+                && isChoice(MenuCatalog.SAUCES, pizza.getSauce())
+                && isChoice(MenuCatalog.CHEESES, pizza.getCheese())
+                && pizza.getToppings() != null
+                && MenuCatalog.toppings(MenuCatalog.toppingMask(pizza.getToppings())).equals(pizza.getToppings())
+                && isCents(pizza.getPrice()) && Math.abs(pizza.getPrice()) < Integer.MAX_VALUE / 100
+                && isCents(order.getTotalPrice())
+                && isChoice(MenuCatalog.DELIVERY_OPTIONS, order.getDeliveryOption())
+                && order.getCurrentStatus() != null && isChoice(MenuCatalog.ORDER_STATUSES, order.getCurrentStatus())
+                && "".equals(order.getFeedback())
+                && order.getAppliedPromotion() == null
+                && (order.getDate() == null || (epochDay(order.getDate()) != Integer.MIN_VALUE
+                        && LocalDate.ofEpochDay(epochDay(order.getDate())).toString().equals(order.getDate())));
+    }
+
+    /**
+     * True for null and for a choice spelled exactly as on the menu.
+     */
+    private static boolean isChoice(String[] choices, String value) {
+        return value == null || value.equals(MenuCatalog.valueOf(choices, MenuCatalog.idOf(choices, value)));
+    }
+
+    private static boolean isCents(double amount) {
+        return Math.round(amount * 100) / 100.0 == amount;
+    }
+
+    /**
+     * Tells whether a record was marked exact and its strings made it into the string table, which
+     * may lag behind the records after a crash.
+     */
+    private boolean isExact(int slot) {
+        int base = HEADER_SIZE + slot * RECORD_SIZE;
+        int address = buffer.getInt(base + 48);
+        int name = buffer.getInt(base + 52);
+        return buffer.get(base + 46) == 1 && address < strings.size() && name < strings.size();
+    }
+
+    private Order readOrder(int slot) {
+        int base = HEADER_SIZE + slot * RECORD_SIZE;
+        int day = buffer.getInt(base + 24);
+        Pizza pizza = new Pizza.PizzaBuilder()
+                .setName(string(buffer.getInt(base + 52)))
+                .setSize(MenuCatalog.valueOf(MenuCatalog.SIZES, buffer.get(base + 36)))
+                .setCrust(MenuCatalog.valueOf(MenuCatalog.CRUSTS, buffer.get(base + 37)))
+                .setSauce(MenuCatalog.valueOf(MenuCatalog.SAUCES, buffer.get(base + 38)))
+                .setCheese(MenuCatalog.valueOf(MenuCatalog.CHEESES, buffer.get(base + 39)))
+                .setToppings(MenuCatalog.toppings(buffer.getInt(base + 40)))
+                .setPrice(buffer.getInt(base + 56) / 100.0)
+                .build();
+
+        Order order = new Order(readId(slot),
+                day == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(day).toString(),
+                buffer.getLong(base + 28) / 100.0, pizza,
+                MenuCatalog.valueOf(MenuCatalog.DELIVERY_OPTIONS, buffer.get(base + 44)),
+                string(buffer.getInt(base + 48)));
+        order.setState(OrderStateAdapter.fromStatus(
+                MenuCatalog.valueOf(MenuCatalog.ORDER_STATUSES, buffer.get(base + 45))));
+        int rating = buffer.get(base + 60);
+        if (rating > 0) {
+            order.setRating(rating);
+        }
+        return order;
+    }
+
+    private String readId(int slot) {
+        int base = HEADER_SIZE + slot * RECORD_SIZE;
+        byte[] id = new byte[ID_LENGTH];
+        int length = 0;
+        while (length < ID_LENGTH && buffer.get(base + length) != 0) {
+            id[length] = buffer.get(base + length);
+            length++;
+        }
+        return new String(id, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns a string's position in the string table, queueing an append for a new one.
+     *
+     * @return Position, or -1 for null and for strings too long for the table.
+     */
+    private int stringRef(String value) throws IOException {
+        if (value == null) {
+            return -1;
+        }
+        Integer ref = stringRefs.get(value);
+        if (ref == null) {
+            ByteArrayOutputStream entry = new ByteArrayOutputStream(value.length() + 2);
+            try {
+                new DataOutputStream(entry).writeUTF(value);
+            } catch (UTFDataFormatException e) {
+                return -1; // Over 64 KB encoded; the record is not exact and the journal keeps the text
+            }
+            ref = strings.size();
+            strings.add(value);
+            stringRefs.put(value, ref);
+            watch(writer.append(stringTable, entry.toByteArray()));
+        }
+        return ref;
+    }
+
+    /**
+     * Queues the whole string table as a replacement for the file, which supersedes the appends
+     * queued before it, so entries keep their positions after a failed append.
+     */
+    private void rewriteStringTable() throws IOException {
+        stringTableFailed = false;
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(table);
+        for (String value : strings) {
+            out.writeUTF(value);
+        }
+        watch(writer.replace(stringTable, table.toByteArray()));
+    }
+
+    private String string(int ref) {
+        return ref >= 0 && ref < strings.size() ? strings.get(ref) : null;
+    }
+
+    private void watch(CompletableFuture<Void> write) {
+        write.whenComplete((ignored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                stringTableFailed = true; // Rewritten by the next put; never wait for our lock here
+            }
+        });
+    }
+
+    private static int epochDay(String date) {
+        if (date == null) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return (int) LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Maps room for the given number of records, growing the file if needed.
+     */
+    private void map(int records) throws IOException {
+        capacity = Math.max(records, 1);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+}
@@ -0,0 +1,341 @@
+package manager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import model.Pizza;
+import model.PizzaFingerprint;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Persisted list of favorite pizzas: a base file plus an append-only log of changes.
+ * <p>
+ * The base file is the familiar JSON array ({@code favorites.json}). Every add or remove appends
+ * one small CRC-framed record to the log, so a change costs the same however many favorites there
+ * are. A record is {@code [int length][int CRC32][payload]}, and the payload starts with a type:
+ * <pre>
+ * 0 HEADER  long base length, int base CRC32 (always the first record)
+ * 1 ADD     pizza as JSON
+ * 2 REMOVE  int index
+ * </pre>
+ * Once the log holds more records than there are favorites (and at least
+ * {@value #COMPACT_MIN_RECORDS}), a background thread compacts it: the base is rewritten with the
+ * current list and the log is restarted with a header naming the new base. The header makes this
+ * crash-safe: if a crash leaves a new base with the old log, the log's header no longer matches
+ * and its records, which the new base already holds, are ignored.
+ * <p>
+ * The {@link PizzaFingerprint}s of the favorites are kept in a hash index, so checking whether a
+ * configuration is already a favorite takes constant time.
+ */
+public class FavoritesLog {
+
+    private static final byte HEADER = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final int COMPACT_MIN_RECORDS = 256;
+    private static final Type LIST_TYPE = new TypeToken<List<Pizza>>() {}.getType();
+
+    private final Path baseFile;
+    private final Path logFile;
+    private final Gson gson;
+    private final PersistenceWriter writer = PersistenceWriter.getInstance();
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "favorites-compactor"); // Shared by all favorites logs
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Pizza> favorites = new ArrayList<>();
+    private final Map<PizzaFingerprint, Integer> fingerprints = new HashMap<>(); // Favorites per configuration
+    private int logRecords;          // Change records in the log, excluding the header
+    private boolean compactionQueued;
+    private boolean closed;
+
+    /**
+     * Opens the favorites, applying the log to the base file.
+     *
+     * @throws IOException If the files cannot be read.
+     */
+    public FavoritesLog(Path baseFile, Path logFile, Gson gson) throws IOException {
+        this(baseFile, logFile, gson, false);
+    }
+
+    /**
+     * @param useSnapshot Decode the base from the {@link SnapshotManager} favorites snapshot when
+     *                    it is current; only for the application's own favorites.json.
+     */
+    FavoritesLog(Path baseFile, Path logFile, Gson gson, boolean useSnapshot) throws IOException {
+        this.baseFile = baseFile;
+        this.logFile = logFile;
+        this.gson = gson;
+
+        writer.flush(); // Read our own queued writes
+        byte[] base = Files.exists(baseFile) ? Files.readAllBytes(baseFile) : new byte[0];
+        List<Pizza> restored = useSnapshot ? SnapshotManager.restoreFavorites() : null; // Null unless current
+        if (restored == null && base.length > 0) {
+            try {
+                restored = gson.fromJson(new String(base, StandardCharsets.UTF_8), LIST_TYPE);
+            } catch (JsonParseException e) {
+                throw new IOException("Unreadable " + baseFile, e);
+            }
+        }
+        if (restored != null) {
+            for (Pizza pizza : restored) {
+                insert(pizza);
+            }
+        }
+        if (!replayLog(base)) {
+            writer.replace(logFile, frame(header(base))).join(); // Start a log for this base
+        }
+    }
+
+    /**
+     * Returns a copy of the favorites in the order they were added.
+     */
+    public synchronized List<Pizza> getFavorites() {
+        return new ArrayList<>(favorites);
+    }
+
+    /**
+     * Returns a copy of the favorites in positions {@code [from, to)}, clamped to the list.
+     */
+    public synchronized List<Pizza> getFavorites(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(favorites.size(), to);
+        return from < to ? new ArrayList<>(favorites.subList(from, to)) : new ArrayList<>();
+    }
+
+    public synchronized int size() {
+        return favorites.size();
+    }
+
+    /**
+     * Tells whether a pizza with the same configuration is a favorite.
+     */
+    public synchronized boolean contains(Pizza pizza) {
+        return fingerprints.containsKey(PizzaFingerprint.of(pizza));
+    }
+
+    /**
+     * Adds a favorite unless one with the same configuration is already there.
+     *
+     * @return False if the pizza was already a favorite.
+     */
+    public synchronized boolean addIfAbsent(Pizza pizza) {
+        if (contains(pizza)) {
+            return false;
+        }
+        add(pizza);
+        return true;
+    }
+
+    /**
+     * Adds a favorite with one append to the log.
+     */
+    public synchronized void add(Pizza pizza) {
+        checkOpen();
+        insert(pizza);
+        byte[] json = gson.toJson(pizza, Pizza.class).getBytes(StandardCharsets.UTF_8);
+        append(ByteBuffer.allocate(1 + json.length).put(ADD).put(json).array());
+    }
+
+    /**
+     * Removes the favorite at a position with one append to the log.
+     *
+     * @return False if there is no favorite at that position.
+     */
+    public synchronized boolean remove(int index) {
+        checkOpen();
+        if (index < 0 || index >= favorites.size()) {
+            return false;
+        }
+        delete(index);
+        append(ByteBuffer.allocate(5).put(REMOVE).putInt(index).array());
+        return true;
+    }
+
+    /**
+     * Replaces all favorites and writes them as a new base.
+     */
+    public synchronized void replaceAll(List<Pizza> pizzas) {
+        checkOpen();
+        favorites.clear();
+        fingerprints.clear();
+        for (Pizza pizza : pizzas) {
+            insert(pizza);
+        }
+        compact();
+    }
+
+    /**
+     * Rewrites the base file with the current favorites and restarts the log. Changes are held
+     * back until the new base is on disk, which keeps base and log consistent.
+     */
+    public synchronized void compact() {
+        if (closed) {
+            return;
+        }
+        byte[] base = gson.toJson(favorites, LIST_TYPE).getBytes(StandardCharsets.UTF_8);
+        try {
+            writer.replace(baseFile, base).join();
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // The old base and log are still consistent
+            return;
+        }
+        logRecords = 0;
+        logFailure(writer.replace(logFile, frame(header(base)))); // Later appends are queued after it
+    }
+
+    /**
+     * Stops writing, e.g. before another instance opens the same files. A compaction that is
+     * running finishes first; one that is queued is skipped, and the log stays valid without it.
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+
+    /**
+     * Tells whether {@link #close()} was called; changes then throw {@link IllegalStateException}.
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Number of change records in the log since the last compaction.
+     */
+    public synchronized int getLogRecords() {
+        return logRecords;
+    }
+
+    private void append(byte[] payload) {
+        logFailure(writer.append(logFile, frame(payload)));
+        logRecords++;
+        if (!compactionQueued && logRecords >= COMPACT_MIN_RECORDS && logRecords > favorites.size()) {
+            compactionQueued = true;
+            compactor.execute(() -> {
+                synchronized (this) {
+                    compactionQueued = false;
+                    compact();
+                }
+            });
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Favorites log " + logFile + " is closed");
+        }
+    }
+
+    /**
+     * Applies the log if it belongs to the given base, and cuts off a torn last record.
+     *
+     * @return False if there is no log for this base, so a new one must be started.
+     */
+    private boolean replayLog(byte[] base) throws IOException {
+        if (!Files.exists(logFile)) {
+            return false;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        ByteBuffer expectedHeader = ByteBuffer.wrap(header(base));
+        int valid = 0;
+        boolean first = true;
+        while (log.remaining() >= 8) {
+            int length = log.getInt();
+            int crc = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            log.get(payload);
+            CRC32 check = new CRC32();
+            check.update(payload);
+            if ((int) check.getValue() != crc) {
+                break;
+            }
+            if (first) {
+                if (!ByteBuffer.wrap(payload).equals(expectedHeader)) {
+                    return false; // Left over from before a compaction that replaced the base
+                }
+                first = false;
+            } else {
+                apply(ByteBuffer.wrap(payload));
+                logRecords++;
+            }
+            valid = log.position();
+        }
+        if (first) {
+            return false;
+        }
+        if (valid < log.capacity()) {
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return true;
+    }
+
+    private void apply(ByteBuffer record) throws IOException {
+        byte type = record.get();
+        if (type == ADD) {
+            String json = new String(record.array(), 1, record.remaining(), StandardCharsets.UTF_8);
+            try {
+                insert(gson.fromJson(json, Pizza.class));
+            } catch (JsonParseException e) {
+                throw new IOException("Unreadable favorite in " + logFile, e);
+            }
+        } else if (type == REMOVE) {
+            int index = record.getInt();
+            if (index >= 0 && index < favorites.size()) {
+                delete(index);
+            }
+        }
+    }
+
+    private void insert(Pizza pizza) {
+        favorites.add(pizza);
+        fingerprints.merge(PizzaFingerprint.of(pizza), 1, Integer::sum);
+    }
+
+    private void delete(int index) {
+        PizzaFingerprint fingerprint = PizzaFingerprint.of(favorites.remove(index));
+        fingerprints.computeIfPresent(fingerprint, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static byte[] header(byte[] base) {
+        CRC32 crc = new CRC32();
+        crc.update(base);
+        return ByteBuffer.allocate(13).put(HEADER).putLong(base.length).putInt((int) crc.getValue()).array();
+    }
+
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(8 + payload.length).putInt(payload.length).putInt((int) crc.getValue())
+                .put(payload).array();
+    }
+
+    private static void logFailure(CompletableFuture<Void> write) {
+        write.whenComplete((ignored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Feedback;
+
+import java.io.IOException;
+
+/**
+ * Hand-written JSON mapping for {@link Feedback}, without reflection.
+ */
+public class FeedbackAdapter extends TypeAdapter<Feedback> {
+
+    @Override
+    public void write(JsonWriter out, Feedback feedback) throws IOException {
+        if (feedback == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("orderId").value(feedback.getOrderId());
+        out.name("pizzaName").value(feedback.getPizzaName());
+        out.name("rating").value(feedback.getRating());
+        out.name("comments").value(feedback.getComments());
+        out.endObject();
+    }
+
+    @Override
+    public Feedback read(JsonReader in) throws IOException {
+        if (JsonFields.skipNull(in)) {
+            return null;
+        }
+        String orderId = null;
+        String pizzaName = null;
+        int rating = 0;
+        String comments = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "orderId":
+                    orderId = JsonFields.nextString(in);
+                    break;
+                case "pizzaName":
+                    pizzaName = JsonFields.nextString(in);
+                    break;
+                case "rating":
+                    rating = JsonFields.nextInt(in);
+                    break;
+                case "comments":
+                    comments = JsonFields.nextString(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Feedback(orderId, pizzaName, rating, comments);
+    }
+}
@@ -0,0 +1,49 @@
+package manager;
+
+import model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * {@link OrderRepository} over the file-based order journal, archive and indexes managed by
+ * {@link StorageManager}.
+ */
+public class FileOrderRepository implements OrderRepository {
+
+    @Override
+    public void save(Order order) {
+        StorageManager.saveOrder(order);
+    }
+
+    @Override
+    public void saveAll(List<Order> orders) {
+        StorageManager.saveOrders(orders);
+    }
+
+    @Override
+    public Order findById(String orderId) {
+        List<Order> orders = StorageManager.queryOrders().setOrderId(orderId).list();
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return StorageManager.loadOrders();
+    }
+
+    @Override
+    public List<Order> findByDate(LocalDate from, LocalDate to) {
+        return StorageManager.queryOrders().setDateRange(from, to).list();
+    }
+
+    @Override
+    public List<Order> findByStatus(String status) {
+        return StorageManager.queryOrders().setStatus(status).list();
+    }
+
+    @Override
+    public int count() {
+        return StorageManager.queryOrders().count();
+    }
+}
@@ -0,0 +1,94 @@
+package manager;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Null-tolerant field readers shared by the hand-written model adapters.
+ */
+final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Reads a string written by {@link #writeShared}, either as text or as a {@link SharedStrings}
+     * id. Text is replaced by the dictionary's instance if it has one, but never added to it.
+     */
+    static String nextShared(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case NUMBER:
+                return SharedStrings.getInstance().valueOf(in.nextInt());
+            default:
+                return SharedStrings.getInstance().shared(in.nextString());
+        }
+    }
+
+    /**
+     * Writes a menu choice as its {@link SharedStrings} id, or as text until the id is on disk.
+     * Values that are not one of {@code choices} are always written as text, so only the closed
+     * menu vocabulary enters the dictionary.
+     *
+     * @param choices One of the {@link model.MenuCatalog} arrays.
+     */
+    static void writeShared(JsonWriter out, String value, String[] choices) throws IOException {
+        int id = Arrays.asList(choices).contains(value) ? SharedStrings.getInstance().durableId(value) : -1;
+        if (id >= 0) {
+            out.value(id);
+        } else {
+            out.value(value);
+        }
+    }
+
+    static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        return in.nextBoolean();
+    }
+
+    /**
+     * Consumes a null value if one is next.
+     *
+     * @return True if a null was consumed.
+     */
+    static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+}
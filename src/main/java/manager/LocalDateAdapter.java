@@ -0,0 +1,33 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Persists a {@link LocalDate} as an ISO-8601 string (e.g. "2024-12-31").
+ */
+public class LocalDateAdapter extends TypeAdapter<LocalDate> {
+
+    @Override
+    public void write(JsonWriter out, LocalDate date) throws IOException {
+        if (date == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(date.toString());
+    }
+
+    @Override
+    public LocalDate read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return LocalDate.parse(in.nextString());
+    }
+}
@@ -0,0 +1,222 @@
+package manager;
+
+import model.Order;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of recent orders kept outside the Java heap.
+ * <p>
+ * Orders are stored in {@link BinaryCodec} form in direct {@link ByteBuffer} slabs of
+ * {@code slabSize} bytes, each record prefixed with its length. Only a map from order id to record
+ * location (slab number and offset) lives on the heap, so hundreds of thousands of orders add
+ * little work for the garbage collector; an order is decoded only when it is read. Saving an order
+ * again appends a new record and repoints the map. When the slabs exceed the memory cap, the
+ * oldest slab is dropped together with the orders whose latest record it holds.
+ * <p>
+ * Orders returned by the cache are fresh copies: changing one does not change the cache, so save
+ * changed orders through {@link StorageManager}.
+ */
+public class OffHeapOrderCache implements PartitionedOrderStore.StoreListener {
+
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final long maxBytes;
+    private final int slabSize;
+    private final List<Slab> slabs = new ArrayList<>(); // Oldest first, consecutive numbers
+    private final Map<String, Long> locations = new HashMap<>(); // Slab number << 32 | offset
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(256);
+    private final DataOutputStream encoder = new DataOutputStream(encoded);
+    private long nextSlab;
+
+    /**
+     * One direct buffer, plus the ids of the records in it so they can be unmapped on eviction.
+     */
+    private static final class Slab {
+        final long number;
+        final ByteBuffer buffer;
+        final List<String> orderIds = new ArrayList<>();
+
+        Slab(long number, int size) {
+            this.number = number;
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes Memory cap for all slabs together; at least one slab is always kept.
+     * @param slabSize Size of each slab in bytes; orders larger than a slab are not cached.
+     */
+    public OffHeapOrderCache(long maxBytes, int slabSize) {
+        this.maxBytes = maxBytes;
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Creates a cache filled with the orders of the hot store, oldest month first, that then follows
+     * every order appended to the store.
+     */
+    static OffHeapOrderCache following(PartitionedOrderStore store, long maxBytes) throws IOException {
+        OffHeapOrderCache cache = new OffHeapOrderCache(maxBytes, DEFAULT_SLAB_SIZE);
+        synchronized (store) { // Hold back appends until the cache follows the store
+            for (String partition : store.listPartitions()) {
+                store.scanPartition(partition, null, (order, position) -> cache.put(order));
+            }
+            store.addListener(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Adds or replaces an order.
+     */
+    public synchronized void put(Order order) {
+        encoded.reset();
+        try {
+            BinaryCodec.writeOrder(encoder, order);
+        } catch (IOException e) {
+            e.printStackTrace(); // Not expected when writing to memory
+            return;
+        }
+        int length = Integer.BYTES + encoded.size();
+        if (length > slabSize) {
+            locations.remove(order.getOrderId()); // Too large to cache; drop any older copy
+            return;
+        }
+
+        Slab slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        if (slab == null || slab.buffer.remaining() < length) {
+            slab = new Slab(nextSlab++, slabSize);
+            slabs.add(slab);
+            evictOverCap();
+        }
+        int offset = slab.buffer.position();
+        slab.buffer.putInt(encoded.size());
+        slab.buffer.put(encoded.toByteArray());
+        slab.orderIds.add(order.getOrderId());
+        locations.put(order.getOrderId(), slab.number << 32 | offset);
+    }
+
+    /**
+     * Decodes a cached order.
+     *
+     * @return A copy of the order, or null if it is not cached.
+     */
+    public synchronized Order get(String orderId) {
+        Long location = locations.get(orderId);
+        return location != null ? decode(slab(location >>> 32).buffer, (int) (long) location) : null;
+    }
+
+    public synchronized boolean contains(String orderId) {
+        return locations.containsKey(orderId);
+    }
+
+    /**
+     * Number of cached orders.
+     */
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    /**
+     * Off-heap memory held by the slabs, in bytes.
+     */
+    public synchronized long memoryUsed() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    /**
+     * Returns the cached orders, oldest first, as a read-only list that decodes each order when it
+     * is accessed. The list is a snapshot: orders saved or evicted afterwards do not change it.
+     */
+    public synchronized List<Order> orders() {
+        List<ByteBuffer> buffers = new ArrayList<>(slabs.size());
+        long[] records = new long[locations.size()];
+        int count = 0;
+        for (Slab slab : slabs) {
+            int slabIndex = buffers.size();
+            buffers.add(slab.buffer.asReadOnlyBuffer()); // Keeps the memory alive if the slab is evicted
+            ByteBuffer buffer = slab.buffer;
+            int offset = 0;
+            for (String orderId : slab.orderIds) {
+                Long location = locations.get(orderId);
+                if (location != null && location == (slab.number << 32 | offset)) { // Skip superseded records
+                    records[count++] = (long) slabIndex << 32 | offset;
+                }
+                offset += Integer.BYTES + buffer.getInt(offset);
+            }
+        }
+        int size = count;
+        return new AbstractList<Order>() {
+            @Override
+            public Order get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+                }
+                return decode(buffers.get((int) (records[index] >>> 32)), (int) records[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Empties the cache and releases its slabs.
+     */
+    public synchronized void clear() {
+        slabs.clear();
+        locations.clear();
+    }
+
+    @Override
+    public void orderAppended(String partition, Order order, OrderJournal.Position position) {
+        put(order);
+    }
+
+    @Override
+    public void partitionDropped(String partition) {
+        // Archived orders are unchanged, so their cached copies stay valid until evicted
+    }
+
+    private void evictOverCap() {
+        while (slabs.size() > 1 && (long) slabs.size() * slabSize > maxBytes) {
+            Slab oldest = slabs.remove(0);
+            for (String orderId : oldest.orderIds) {
+                Long location = locations.get(orderId);
+                if (location != null && location >>> 32 == oldest.number) { // Not saved again since
+                    locations.remove(orderId);
+                }
+            }
+        }
+    }
+
+    private Slab slab(long number) {
+        return slabs.get((int) (number - slabs.get(0).number));
+    }
+
+    private static Order decode(ByteBuffer buffer, int offset) {
+        byte[] record = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, record);
+        try {
+            return BinaryCodec.readOrder(new DataInputStream(new ByteArrayInputStream(record)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
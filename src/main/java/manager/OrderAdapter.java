@@ -0,0 +1,120 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.MenuCatalog;
+import model.Order;
+import model.OrderState;
+import model.Pizza;
+import model.Promotion;
+
+import java.io.IOException;
+
+/**
+ * Hand-written JSON mapping for {@link Order}, without reflection.
+ * <p>
+ * Only persistent fields are written; the observers (live tracking windows) never are. The state
+ * is written as its status name ({@code "state":"Delivered"}) and mapped back to a state object on
+ * read. Field names match the reflective mapping, so existing order files still load. The delivery
+ * option is written as a {@link SharedStrings} id; the address is free text and stays text.
+ */
+public class OrderAdapter extends TypeAdapter<Order> {
+
+    private final OrderStateAdapter stateAdapter = new OrderStateAdapter();
+    private final PizzaAdapter pizzaAdapter = new PizzaAdapter();
+    private final PromotionAdapter promotionAdapter = new PromotionAdapter();
+
+    @Override
+    public void write(JsonWriter out, Order order) throws IOException {
+        if (order == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("state").value(order.getCurrentStatus());
+        out.name("orderId").value(order.getOrderId());
+        out.name("date").value(order.getDate());
+        out.name("totalPrice").value(order.getTotalPrice());
+        if (order.getPizza() != null) {
+            out.name("pizza");
+            pizzaAdapter.write(out, order.getPizza());
+        }
+        out.name("deliveryOption");
+        JsonFields.writeShared(out, order.getDeliveryOption(), MenuCatalog.DELIVERY_OPTIONS);
+        out.name("deliveryAddress").value(order.getDeliveryAddress());
+        out.name("feedback").value(order.getFeedback());
+        out.name("rating").value(order.getRating());
+        if (order.getAppliedPromotion() != null) {
+            out.name("appliedPromotion");
+            promotionAdapter.write(out, order.getAppliedPromotion());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Order read(JsonReader in) throws IOException {
+        if (JsonFields.skipNull(in)) {
+            return null;
+        }
+        OrderState state = null;
+        String orderId = null;
+        String date = null;
+        double totalPrice = 0;
+        Pizza pizza = null;
+        String deliveryOption = null;
+        String deliveryAddress = null;
+        String feedback = null;
+        int rating = 0;
+        Promotion appliedPromotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "state":
+                    state = stateAdapter.read(in);
+                    break;
+                case "orderId":
+                    orderId = JsonFields.nextString(in);
+                    break;
+                case "date":
+                    date = JsonFields.nextString(in);
+                    break;
+                case "totalPrice":
+                    totalPrice = JsonFields.nextDouble(in);
+                    break;
+                case "pizza":
+                    pizza = pizzaAdapter.read(in);
+                    break;
+                case "deliveryOption":
+                    deliveryOption = JsonFields.nextShared(in);
+                    break;
+                case "deliveryAddress":
+                    deliveryAddress = JsonFields.nextShared(in);
+                    break;
+                case "feedback":
+                    feedback = JsonFields.nextString(in);
+                    break;
+                case "rating":
+                    rating = JsonFields.nextInt(in);
+                    break;
+                case "appliedPromotion":
+                    appliedPromotion = promotionAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue(); // Includes observers written by older versions
+            }
+        }
+        in.endObject();
+
+        Order order = new Order(orderId, date, totalPrice, pizza, deliveryOption, deliveryAddress);
+        if (state != null) {
+            order.setState(state);
+        }
+        order.setFeedback(feedback != null ? feedback : "");
+        if (rating >= 1 && rating <= 5) {
+            order.setRating(rating);
+        }
+        order.setAppliedPromotion(appliedPromotion);
+        return order;
+    }
+}
@@ -0,0 +1,312 @@
+package manager;
+
+import model.Order;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold storage for old orders in compressed, immutable segment files.
+ * <p>
+ * Archiving a monthly partition of the {@link PartitionedOrderStore} writes its current orders, in
+ * {@link BinaryCodec} form, into one or more segments named {@code yyyy-MM-nnnn.arc} and then drops
+ * the partition. Each segment starts with a {@value #HEADER_SIZE}-byte summary:
+ * <pre>
+ *  0  int  magic "PZAR"
+ *  4  int  version
+ *  8  int  order count
+ * 12  int  first order date as epoch day
+ * 16  int  last order date as epoch day
+ * 20  int  uncompressed length
+ * 24  int  compressed length
+ * 28  int  CRC32 of the compressed data
+ * </pre>
+ * followed by the Deflater-compressed records. Date-range reads check the summaries and only
+ * inflate segments that overlap the range. A month archived again (because an old order was
+ * changed after it was archived) gets a new segment with a higher number, which takes precedence.
+ */
+public class OrderArchive {
+
+    /**
+     * Prefix that marks archive segments in {@link OrderIndex} entries.
+     */
+    static final String PARTITION_PREFIX = "archive:";
+    static final int MAX_SEGMENT_ORDERS = 10_000;
+    private static final String SEGMENT_SUFFIX = ".arc";
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x505A4152; // "PZAR"
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    /**
+     * Opens (or creates) an archive in the given directory.
+     *
+     * @throws IOException If the directory cannot be created.
+     */
+    public OrderArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Moves every monthly partition before the given month into the archive.
+     * <p>
+     * Segments are written without holding the store, so saving orders is not held up by the
+     * compression. The index is repointed and the partition dropped under the store's lock, and
+     * only if nothing was appended to the partition meanwhile; otherwise the new segments are
+     * deleted and the month is left for the next run.
+     *
+     * @param month Oldest month to keep in the hot store.
+     * @param store Hot order store.
+     * @param index Index to repoint at the archived records.
+     * @return Number of orders archived.
+     * @throws IOException If a partition cannot be read or a segment cannot be written.
+     */
+    int archiveBefore(YearMonth month, PartitionedOrderStore store, OrderIndex index) throws IOException {
+        int archived = 0;
+        for (String partition : store.listPartitions()) {
+            if (partition.equals(PartitionedOrderStore.UNDATED) || partition.compareTo(month.toString()) >= 0) {
+                continue;
+            }
+            OrderJournal.Position replayedTo;
+            List<Order> orders;
+            synchronized (store) {
+                replayedTo = store.positions().get(partition);
+                orders = store.replayPartition(partition);
+            }
+            List<String> segments = new ArrayList<>();
+            for (int from = 0; from < orders.size(); from += MAX_SEGMENT_ORDERS) {
+                segments.add(writeSegment(partition, orders.subList(from, Math.min(from + MAX_SEGMENT_ORDERS, orders.size()))));
+            }
+
+            synchronized (store) { // No appends between the check and the drop
+                OrderJournal.Position now = store.positions().get(partition);
+                if (now == null || OrderJournal.compare(now, replayedTo) != 0) {
+                    for (String segment : segments) {
+                        Files.deleteIfExists(segmentPath(segment)); // Changed while archiving; try again next time
+                    }
+                    continue;
+                }
+                for (int i = 0; i < segments.size(); i++) {
+                    int from = i * MAX_SEGMENT_ORDERS;
+                    index.segmentArchived(partition, PARTITION_PREFIX + segments.get(i),
+                            orders.subList(from, Math.min(from + MAX_SEGMENT_ORDERS, orders.size())));
+                }
+                PersistenceWriter.getInstance().flush(); // The index must point at the archive before the partition goes
+                store.dropPartition(partition);
+            }
+            archived += orders.size();
+        }
+        return archived;
+    }
+
+    /**
+     * Lists segment names (without the file suffix), oldest month first and in archive order.
+     */
+    public List<String> listSegments() throws IOException {
+        List<String> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        }
+        segments.sort(null); // "yyyy-MM-nnnn" sorts chronologically
+        return segments;
+    }
+
+    /**
+     * Reads the summary header of a segment without inflating it.
+     *
+     * @return {count, first epoch day, last epoch day}.
+     */
+    public int[] readSummary(String segment) throws IOException {
+        ByteBuffer header = readHeader(segment);
+        return new int[]{header.getInt(8), header.getInt(12), header.getInt(16)};
+    }
+
+    /**
+     * Decodes every order of a segment in archive order.
+     */
+    public List<Order> readSegment(String segment) throws IOException {
+        ByteBuffer header = readHeader(segment);
+        int count = header.getInt(8);
+        byte[] compressed = new byte[header.getInt(24)];
+        try (InputStream in = Files.newInputStream(segmentPath(segment))) {
+            in.skipNBytes(HEADER_SIZE);
+            if (in.readNBytes(compressed, 0, compressed.length) < compressed.length) {
+                throw new EOFException("Truncated archive segment " + segment);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        if ((int) crc.getValue() != header.getInt(28)) {
+            throw new IOException("Corrupt archive segment " + segment);
+        }
+
+        List<Order> orders = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(compressed))))) {
+            for (int i = 0; i < count; i++) {
+                orders.add(BinaryCodec.readOrder(in));
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Reads the orders at the given positions of one segment.
+     *
+     * @param segment   Segment name.
+     * @param ordinals  Positions of the orders within the segment.
+     * @return The order at each position, or null for positions past the end.
+     */
+    public List<Order> read(String segment, List<Integer> ordinals) throws IOException {
+        List<Order> orders = readSegment(segment);
+        Order[] selected = new Order[ordinals.size()];
+        for (int i = 0; i < selected.length; i++) {
+            int ordinal = ordinals.get(i);
+            selected[i] = ordinal < orders.size() ? orders.get(ordinal) : null;
+        }
+        return Arrays.asList(selected);
+    }
+
+    /**
+     * Streams archived orders segment by segment, inflating each segment only when the stream
+     * reaches it. Copies superseded by a later segment or by the hot store are skipped.
+     *
+     * @param from  First day to include, or null.
+     * @param to    Last day to include, or null.
+     * @param index Index that knows where the latest copy of each order lives.
+     * @return Lazily decoded archived orders within the range.
+     */
+    public Stream<Order> stream(LocalDate from, LocalDate to, OrderIndex index) throws IOException {
+        return segmentsOverlapping(from, to).stream().flatMap(segment -> {
+            try {
+                return readSegment(segment).stream().filter(order -> inRange(order, from, to)
+                        && index.isLatest(order.getOrderId(), PARTITION_PREFIX + segment));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lists the segments whose date summary overlaps the range; the other segments are not opened
+     * beyond their header.
+     */
+    public List<String> segmentsOverlapping(LocalDate from, LocalDate to) throws IOException {
+        List<String> overlapping = new ArrayList<>();
+        for (String segment : listSegments()) {
+            int[] summary = readSummary(segment);
+            if ((from == null || summary[2] >= from.toEpochDay()) && (to == null || summary[1] <= to.toEpochDay())) {
+                overlapping.add(segment);
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Total size of all segment files in bytes.
+     */
+    public long diskSize() throws IOException {
+        long size = 0;
+        for (String segment : listSegments()) {
+            size += Files.size(segmentPath(segment));
+        }
+        return size;
+    }
+
+    static boolean inRange(Order order, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        String date = order.getDate();
+        return date != null && (from == null || date.compareTo(from.toString()) >= 0)
+                && (to == null || date.compareTo(to.toString()) <= 0);
+    }
+
+    /**
+     * Compresses a batch of orders into a new segment for the given month.
+     *
+     * @return Name of the new segment.
+     */
+    private String writeSegment(String partition, List<Order> orders) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream rawOut = new DataOutputStream(raw);
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (Order order : orders) {
+            BinaryCodec.writeOrder(rawOut, order);
+            int day = (int) LocalDate.parse(order.getDate()).toEpochDay();
+            firstDay = Math.min(firstDay, day);
+            lastDay = Math.max(lastDay, day);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            raw.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+        byte[] payload = compressed.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer segment = ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(orders.size())
+                .putInt(firstDay)
+                .putInt(lastDay)
+                .putInt(raw.size())
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload);
+        String name = nextSegmentName(partition);
+        PersistenceWriter.getInstance().replace(segmentPath(name), segment.array()).join();
+        return name;
+    }
+
+    private String nextSegmentName(String partition) throws IOException {
+        int next = 1;
+        for (String segment : listSegments()) {
+            if (segment.startsWith(partition + "-")) {
+                next = Math.max(next, Integer.parseInt(segment.substring(partition.length() + 1)) + 1);
+            }
+        }
+        return String.format("%s-%04d", partition, next);
+    }
+
+    private ByteBuffer readHeader(String segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // Keep reading until the header is complete
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(segment + " is not an order archive segment");
+        }
+        return header;
+    }
+
+    private Path segmentPath(String segment) {
+        return directory.resolve(segment + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,161 @@
+package manager;
+
+import model.ExtraCheeseDecorator;
+import model.Order;
+import model.Pizza;
+import model.PromotionIndex;
+import model.SpecialPackagingDecorator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV form of orders used for bulk import and export.
+ * <p>
+ * One order per line, with a header line naming the columns in {@link #COLUMNS}; columns may come
+ * in any order and missing optional columns are left empty. Fields containing commas or quotes are
+ * quoted with doubled quotes, as in RFC 4180, but a record never spans lines. Toppings and
+ * decorators are lists separated by {@code ;}, and the applied promotion is identified by its code
+ * only.
+ */
+final class OrderCsv {
+
+    static final String[] COLUMNS = {"order_id", "date", "status", "total_price", "delivery_option",
+            "delivery_address", "pizza_name", "size", "crust", "sauce", "cheese", "toppings", "pizza_price",
+            "decorators", "promo_code", "rating", "feedback"};
+    static final String EXTRA_CHEESE = "ExtraCheese";
+    static final String SPECIAL_PACKAGING = "SpecialPackaging";
+
+    private OrderCsv() {
+    }
+
+    /**
+     * Maps a header line to the position of each of {@link #COLUMNS} in it.
+     *
+     * @return Field index per column, or -1 for columns the file does not have.
+     * @throws IllegalArgumentException If the header lacks the order id or date column.
+     */
+    static int[] columnsOf(List<String> header) {
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = header.indexOf(COLUMNS[i]);
+        }
+        if (columns[0] < 0 || columns[1] < 0) {
+            throw new IllegalArgumentException("CSV header must include order_id and date");
+        }
+        return columns;
+    }
+
+    /**
+     * Splits one CSV line into fields.
+     *
+     * @throws IllegalArgumentException If a quoted field is not closed.
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Builds an order from the fields of one line.
+     *
+     * @param fields     Fields of the line.
+     * @param columns    Column positions from {@link #columnsOf(List)}.
+     * @param promotions Known promotions, used to restore the applied promotion from its code.
+     * @throws IllegalArgumentException If a number is malformed.
+     */
+    static Order toOrder(List<String> fields, int[] columns, PromotionIndex promotions) {
+        Pizza pizza = null;
+        String size = field(fields, columns, 7);
+        String name = field(fields, columns, 6);
+        if (name != null || size != null) {
+            String toppings = field(fields, columns, 11);
+            pizza = new Pizza.PizzaBuilder()
+                    .setName(name)
+                    .setSize(size)
+                    .setCrust(field(fields, columns, 8))
+                    .setSauce(field(fields, columns, 9))
+                    .setCheese(field(fields, columns, 10))
+                    .setToppings(toppings != null ? new ArrayList<>(Arrays.asList(toppings.split(";"))) : new ArrayList<>())
+                    .setPrice(number(fields, columns, 12))
+                    .build();
+            String decorators = field(fields, columns, 13);
+            if (decorators != null) {
+                for (String decorator : decorators.split(";")) {
+                    if (decorator.equals(EXTRA_CHEESE)) {
+                        pizza = new ExtraCheeseDecorator(pizza);
+                    } else if (decorator.equals(SPECIAL_PACKAGING)) {
+                        pizza = new SpecialPackagingDecorator(pizza);
+                    } else {
+                        throw new IllegalArgumentException("Unknown decorator " + decorator);
+                    }
+                }
+            }
+        }
+
+        Order order = new Order(field(fields, columns, 0), field(fields, columns, 1), number(fields, columns, 3),
+                pizza, field(fields, columns, 4), field(fields, columns, 5));
+        order.setState(OrderStateAdapter.fromStatus(field(fields, columns, 2)));
+        String promoCode = field(fields, columns, 14);
+        if (promoCode != null) {
+            order.setAppliedPromotion(promotions.get(promoCode));
+        }
+        String rating = field(fields, columns, 15);
+        if (rating != null && !rating.equals("0")) { // 0 means not rated
+            order.setRating(Integer.parseInt(rating));
+        }
+        String feedback = field(fields, columns, 16);
+        order.setFeedback(feedback != null ? feedback : "");
+        return order;
+    }
+
+    /**
+     * Returns a field by column, or null if the column is missing or the field is empty.
+     */
+    private static String field(List<String> fields, int[] columns, int column) {
+        int index = columns[column];
+        if (index < 0 || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static double number(List<String> fields, int[] columns, int column) {
+        String value = field(fields, columns, column);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + COLUMNS[column] + " '" + value + "'");
+        }
+    }
+}
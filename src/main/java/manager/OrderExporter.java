@@ -0,0 +1,265 @@
+package manager;
+
+import model.ExtraCheeseDecorator;
+import model.Order;
+import model.Pizza;
+import model.PizzaDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders into a CSV file in the {@link OrderCsv} layout, e.g. for the daily accounting
+ * export.
+ * <p>
+ * Each order is encoded field by field, as UTF-8, straight into one reused direct
+ * {@link ByteBuffer}, which is written to a {@link FileChannel} whenever it fills up. No per-row
+ * strings are built and prices are formatted from whole cents, so memory use does not grow with
+ * the number of rows. Line breaks inside fields are written as spaces, so each order stays on one
+ * line and the file can be read back with {@link OrderImporter}.
+ */
+public class OrderExporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+
+    public OrderExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize Size of the reused direct buffer; at least 64 bytes.
+     */
+    public OrderExporter(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(Math.max(64, bufferSize));
+    }
+
+    /**
+     * Writes the orders to a new CSV file, replacing any existing file. The stream is consumed but
+     * not closed.
+     *
+     * @return Number of orders written.
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized long export(Stream<Order> orders, Path file) throws IOException {
+        long rows = 0;
+        buffer.clear();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = out;
+            for (int i = 0; i < OrderCsv.COLUMNS.length; i++) {
+                if (i > 0) {
+                    put(',');
+                }
+                text(OrderCsv.COLUMNS[i]);
+            }
+            put('\n');
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                writeOrder(iterator.next());
+                rows++;
+            }
+            drain();
+        } finally {
+            channel = null;
+        }
+        return rows;
+    }
+
+    private void writeOrder(Order order) throws IOException {
+        Pizza pizza = order.getPizza();
+        int decorators = 0;
+        while (pizza instanceof PizzaDecorator) {
+            decorators++;
+            pizza = ((PizzaDecorator) pizza).getDecoratedPizza();
+        }
+
+        field(order.getOrderId());
+        put(',');
+        field(order.getDate());
+        put(',');
+        field(order.getCurrentStatus());
+        put(',');
+        cents(order.getTotalPrice());
+        put(',');
+        field(order.getDeliveryOption());
+        put(',');
+        field(order.getDeliveryAddress());
+        put(',');
+        if (pizza != null) {
+            field(pizza.getName());
+            put(',');
+            field(pizza.getSize());
+            put(',');
+            field(pizza.getCrust());
+            put(',');
+            field(pizza.getSauce());
+            put(',');
+            field(pizza.getCheese());
+            put(',');
+            List<String> toppings = pizza.getToppings();
+            if (toppings != null) {
+                for (int i = 0; i < toppings.size(); i++) {
+                    if (i > 0) {
+                        put(';');
+                    }
+                    field(toppings.get(i));
+                }
+            }
+            put(',');
+            cents(pizza.getPrice());
+            put(',');
+            writeDecorators(order.getPizza(), decorators);
+        } else {
+            text(",,,,,,,"); // Empty pizza columns up to decorators
+        }
+        put(',');
+        if (order.getAppliedPromotion() != null) {
+            field(order.getAppliedPromotion().getPromoCode());
+        }
+        put(',');
+        number(order.getRating());
+        put(',');
+        field(order.getFeedback());
+        put('\n');
+    }
+
+    /**
+     * Writes the decorators innermost first, the order in which the importer applies them.
+     */
+    private void writeDecorators(Pizza pizza, int count) throws IOException {
+        for (int depth = count - 1; depth >= 0; depth--) {
+            Pizza decorator = pizza;
+            for (int i = 0; i < depth; i++) {
+                decorator = ((PizzaDecorator) decorator).getDecoratedPizza();
+            }
+            if (depth < count - 1) {
+                put(';');
+            }
+            text(decorator instanceof ExtraCheeseDecorator ? OrderCsv.EXTRA_CHEESE : OrderCsv.SPECIAL_PACKAGING);
+        }
+    }
+
+    /**
+     * Writes a field, quoting it if it holds a comma or quote.
+     */
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"';
+        }
+        if (quote) {
+            put('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' && quote) {
+                put('"');
+                put('"');
+            } else if (c == '\n' || c == '\r') {
+                put(' '); // Keep one order per line
+            } else if (c < 0x80) {
+                put(c);
+            } else {
+                i = putUtf8(value, i);
+            }
+        }
+        if (quote) {
+            put('"');
+        }
+    }
+
+    /**
+     * Writes known ASCII text as is.
+     */
+    private void text(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            put(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes an amount with exactly two decimals.
+     */
+    private void cents(double amount) throws IOException {
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            put('-');
+            cents = -cents;
+        }
+        number(cents / 100);
+        put('.');
+        put((char) ('0' + cents % 100 / 10));
+        put((char) ('0' + cents % 10));
+    }
+
+    private void number(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Encodes the non-ASCII character at {@code index} (and its low surrogate, if any) as UTF-8.
+     *
+     * @return Index of the last char consumed.
+     */
+    private int putUtf8(String value, int index) throws IOException {
+        int codePoint = value.codePointAt(index);
+        if (buffer.remaining() < 4) {
+            drain();
+        }
+        if (codePoint < 0x800) {
+            buffer.put((byte) (0xC0 | codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                codePoint = '?'; // Unpaired surrogate
+                buffer.put((byte) codePoint);
+                return index;
+            }
+            buffer.put((byte) (0xE0 | codePoint >> 12));
+            buffer.put((byte) (0x80 | (codePoint >> 6 & 0x3F)));
+        } else {
+            buffer.put((byte) (0xF0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | (codePoint >> 12 & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint >> 6 & 0x3F)));
+        }
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        return index + Character.charCount(codePoint) - 1;
+    }
+
+    private void put(char ascii) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) ascii);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
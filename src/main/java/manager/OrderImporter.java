@@ -0,0 +1,336 @@
+package manager;
+
+import com.google.gson.Gson;
+import model.CrustValidator;
+import model.Order;
+import model.PromotionIndex;
+import model.PromotionManager;
+import model.SizeValidator;
+import model.ToppingsValidator;
+import model.ValidationHandler;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk import of orders from JSON-lines or CSV files, such as POS exports and other branches'
+ * order histories.
+ * <p>
+ * The file is split into chunks of about {@code chunkSize} bytes at line boundaries, and the
+ * chunks are parsed in parallel on a fork-join pool. Each order is checked (id, ISO date, and the
+ * pizza through the {@link ValidationHandler} chain); rows that fail are reported with their line
+ * number and skipped, and the import carries on. Valid orders are saved in file order through the
+ * {@link OrderRepository} in batches of {@code batchSize}, while later chunks are still being
+ * parsed. Files ending in {@code .csv} are read as CSV ({@link OrderCsv}); anything else as one
+ * JSON order per line.
+ */
+public class OrderImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000; // Later errors are only counted
+    private static final int SCAN_SIZE = 8 * 1024;
+
+    private final OrderRepository repository;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int batchSize;
+    private final Gson gson = StorageManager.getGson();
+    private final ValidationHandler validator;
+
+    /**
+     * A row that could not be imported.
+     */
+    public static final class RowError {
+        public final long line;
+        public final String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Outcome of one import.
+     */
+    public static final class Report {
+        private final long rows;
+        private final long imported;
+        private final long errorCount;
+        private final List<RowError> errors;
+        private final long elapsedNanos;
+
+        Report(long rows, long imported, long errorCount, List<RowError> errors, long elapsedNanos) {
+            this.rows = rows;
+            this.imported = imported;
+            this.errorCount = errorCount;
+            this.errors = Collections.unmodifiableList(errors);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of non-blank data rows read.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * The first {@value #MAX_REPORTED_ERRORS} rejected rows, in file order.
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+
+        public double getSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos > 0 ? rows / (elapsedNanos / 1e9) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d of %d rows in %.2f s (%.0f rows/s), %d rejected",
+                    imported, rows, getSeconds(), getRowsPerSecond(), errorCount);
+        }
+    }
+
+    /**
+     * Orders parsed from one chunk, with errors numbered by line within the chunk.
+     */
+    private static final class ChunkResult {
+        final List<Order> orders = new ArrayList<>();
+        final List<RowError> errors = new ArrayList<>();
+        long rows;
+        long lines;
+    }
+
+    /**
+     * Creates an importer with the default chunk and batch sizes on the common fork-join pool.
+     */
+    public OrderImporter(OrderRepository repository) {
+        this(repository, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    public OrderImporter(OrderRepository repository, ForkJoinPool pool, int chunkSize, int batchSize) {
+        this.repository = repository;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        ValidationHandler size = new SizeValidator();
+        ValidationHandler crust = new CrustValidator();
+        size.setNextHandler(crust);
+        crust.setNextHandler(new ToppingsValidator());
+        this.validator = size;
+    }
+
+    /**
+     * Imports every valid order in a file.
+     *
+     * @throws IOException If the file cannot be read, or a CSV file has no usable header.
+     */
+    public Report importFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        // A private copy, so parser threads never see the admin screen's changes mid-import
+        PromotionIndex promotions = new PromotionIndex(PromotionManager.getInstance().getAllPromotions());
+
+        long rows = 0;
+        long imported = 0;
+        long errorCount = 0;
+        List<RowError> errors = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long line = 1;
+            int[] columns = null;
+            if (csv) {
+                position = nextLineStart(channel, 0, size);
+                String header = new String(read(channel, 0, position), StandardCharsets.UTF_8).trim();
+                try {
+                    columns = OrderCsv.columnsOf(OrderCsv.split(stripBom(header)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ": " + e.getMessage());
+                }
+                line++;
+            }
+
+            int window = pool.getParallelism() * 2; // Chunks parsed ahead of the batch writer
+            ArrayDeque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            List<Order> batch = new ArrayList<>(batchSize);
+            int[] csvColumns = columns;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < window) {
+                    long from = position;
+                    long to = nextLineStart(channel, Math.min(size, from + chunkSize), size);
+                    inFlight.add(pool.submit(() -> parseChunk(channel, from, to, csvColumns, promotions)));
+                    position = to;
+                }
+
+                ChunkResult chunk;
+                try {
+                    chunk = inFlight.removeFirst().join();
+                } catch (RuntimeException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw e;
+                }
+                rows += chunk.rows;
+                for (RowError error : chunk.errors) {
+                    if (errorCount++ < MAX_REPORTED_ERRORS) {
+                        errors.add(new RowError(line + error.line, error.message));
+                    }
+                }
+                line += chunk.lines;
+                for (Order order : chunk.orders) {
+                    batch.add(order);
+                    if (batch.size() == batchSize) {
+                        repository.saveAll(batch);
+                        imported += batch.size();
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                repository.saveAll(batch);
+                imported += batch.size();
+            }
+        }
+        PersistenceWriter.getInstance().flush(); // Count the time until the orders are on disk
+        return new Report(rows, imported, errorCount, errors, System.nanoTime() - start);
+    }
+
+    /**
+     * Parses and checks the lines in {@code [from, to)}. Runs on the fork-join pool.
+     */
+    private ChunkResult parseChunk(FileChannel channel, long from, long to, int[] columns,
+                                  PromotionIndex promotions) throws IOException {
+        ChunkResult result = new ChunkResult();
+        String text = new String(read(channel, from, to), StandardCharsets.UTF_8);
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd).trim();
+            if (from == 0 && lineStart == 0) {
+                line = stripBom(line);
+            }
+            if (!line.isEmpty()) {
+                result.rows++;
+                try {
+                    Order order = columns != null ? OrderCsv.toOrder(OrderCsv.split(line), columns, promotions)
+                            : gson.fromJson(line, Order.class);
+                    String problem = check(order);
+                    if (problem == null) {
+                        result.orders.add(order);
+                    } else {
+                        result.errors.add(new RowError(result.lines, problem));
+                    }
+                } catch (RuntimeException e) { // Malformed JSON, numbers or fields: reject the row only
+                    result.errors.add(new RowError(result.lines, e.getMessage() != null ? e.getMessage()
+                            : e.getClass().getSimpleName()));
+                }
+            }
+            result.lines++;
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return Why the order cannot be imported, or null if it is valid.
+     */
+    private String check(Order order) {
+        if (order == null) {
+            return "Empty record";
+        }
+        if (order.getOrderId() == null || order.getOrderId().isEmpty()) {
+            return "Missing order id";
+        }
+        if (order.getDate() == null) {
+            return "Missing date";
+        }
+        try {
+            LocalDate.parse(order.getDate());
+        } catch (DateTimeParseException e) {
+            return "Invalid date '" + order.getDate() + "'";
+        }
+        if (order.getTotalPrice() < 0) {
+            return "Negative total price";
+        }
+        if (order.getPizza() == null) {
+            return "Missing pizza";
+        }
+        return validator.check(order.getPizza());
+    }
+
+    /**
+     * Returns the offset just past the first line break at or after {@code from}, or the file size
+     * if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static byte[] read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                throw new EOFException("File shrank during import");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static String stripBom(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+}
@@ -0,0 +1,478 @@
+package manager;
+
+import model.Order;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent secondary indexes over stored orders: date, current status, delivery option and
+ * applied promo code.
+ * <p>
+ * Each order appended to the {@link PartitionedOrderStore} adds one entry to an append-only index
+ * log holding the indexed fields and the journal position of the record, so a lookup finds the
+ * matching order ids in memory and then reads exactly those records. On open the log is loaded
+ * and brought up to date by scanning only the journal records written after the last indexed one.
+ * Orders in {@link OrderArchive} segments are indexed from the segments themselves when the log has
+ * no entries for a segment (or is damaged), so a lost log does not hide archived orders.
+ * Promo codes are indexed in upper case, as they are matched case-insensitively.
+ */
+public class OrderIndex implements PartitionedOrderStore.StoreListener {
+
+    private static final byte ENTRY = 1;
+    private static final byte DROP_PARTITION = 2;
+
+    private final Path logFile;
+    private final PartitionedOrderStore store;
+    private final PersistenceWriter writer = PersistenceWriter.getInstance();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Set<String>> byDate = new TreeMap<>(); // ISO dates sort chronologically
+    private final Map<String, Set<String>> byStatus = new HashMap<>();
+    private final Map<String, Set<String>> byDeliveryOption = new HashMap<>();
+    private final Map<String, Set<String>> byPromoCode = new HashMap<>();
+    private final Map<String, OrderJournal.Position> lastIndexed = new HashMap<>();
+    private final Map<String, String> sharedStrings = new HashMap<>(); // One copy of each date, status, ...
+    private long logRecords;
+
+    /**
+     * Loads the index log, indexes any orders stored or archived since it was last written, and
+     * starts following the store.
+     *
+     * @param logFile Index log file.
+     * @param store   Order store to index.
+     * @param archive Archive whose segments the log may be missing.
+     * @throws IOException If the log or the store cannot be read.
+     */
+    public OrderIndex(Path logFile, PartitionedOrderStore store, OrderArchive archive) throws IOException {
+        this.logFile = logFile;
+        this.store = store;
+        synchronized (store) { // Hold back appends until the index follows the store
+            boolean damaged = load();
+
+            ByteArrayOutputStream catchUp = new ByteArrayOutputStream();
+            List<String> partitions = store.listPartitions();
+            for (String partition : new ArrayList<>(lastIndexed.keySet())) {
+                if (!partition.startsWith(OrderArchive.PARTITION_PREFIX) && !partitions.contains(partition)) {
+                    removePartition(partition); // Dropped while the index was not following the store
+                    catchUp.writeBytes(frame(dropRecord(partition)));
+                }
+            }
+            for (String segment : archive.listSegments()) { // Oldest first, so later segments win
+                String name = OrderArchive.PARTITION_PREFIX + segment;
+                if (damaged || !lastIndexed.containsKey(name)) {
+                    indexSegment(archive, segment, name, catchUp);
+                }
+            }
+            Map<String, OrderJournal.Position> ends = store.positions();
+            for (String partition : partitions) {
+                OrderJournal.Position last = lastIndexed.get(partition);
+                if (last != null && OrderJournal.compare(last, ends.get(partition)) >= 0) {
+                    // The log points past the end of the journal (a crash lost journal records): rebuild it
+                    removePartition(partition);
+                    last = null;
+                }
+                store.scanPartition(partition, last,
+                        (order, position) -> catchUp.writeBytes(frame(index(partition, order, position))));
+            }
+
+            if (damaged || logRecords > 2L * entries.size() + 1000) {
+                compact();
+            } else if (catchUp.size() > 0) {
+                writer.append(logFile, catchUp.toByteArray());
+            }
+            store.addListener(this);
+        }
+    }
+
+    @Override
+    public synchronized void orderAppended(String partition, Order order, OrderJournal.Position position) {
+        writer.append(logFile, frame(index(partition, order, position)));
+    }
+
+    @Override
+    public synchronized void partitionDropped(String partition) {
+        removePartition(partition);
+        writer.append(logFile, frame(dropRecord(partition)));
+    }
+
+    /**
+     * Re-reads a partition after a failed append, whose journal positions can no longer be trusted.
+     */
+    @Override
+    public synchronized void appendFailed(String partition) {
+        removePartition(partition);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        log.writeBytes(frame(dropRecord(partition)));
+        try {
+            store.scanPartition(partition, null,
+                    (order, position) -> log.writeBytes(frame(index(partition, order, position))));
+        } catch (IOException e) {
+            e.printStackTrace(); // Indexed again when the index is next opened
+        }
+        writer.append(logFile, log.toByteArray());
+    }
+
+    /**
+     * Points the entries of orders moved from a partition into an archive segment at that segment.
+     * The position of an archived order is its ordinal within the segment.
+     *
+     * @param partition Partition the orders were read from.
+     * @param segment   Archive segment, prefixed with {@link OrderArchive#PARTITION_PREFIX}.
+     * @param orders    Orders in the order they were written to the segment.
+     */
+    synchronized void segmentArchived(String partition, String segment, List<Order> orders) {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        for (int i = 0; i < orders.size(); i++) {
+            Entry current = entries.get(orders.get(i).getOrderId());
+            if (current == null || current.partition.equals(partition)) { // Not if a later copy lives elsewhere
+                log.writeBytes(frame(index(segment, orders.get(i), new OrderJournal.Position(0, i))));
+            }
+        }
+        writer.append(logFile, log.toByteArray());
+    }
+
+    /**
+     * Indexes the orders of an archive segment, except those whose entry points at the hot store
+     * or at a later segment. Both hold a newer copy: the hot store because archived orders only
+     * come back there when changed, later segments because a month archived again gets a higher
+     * segment number.
+     */
+    private void indexSegment(OrderArchive archive, String segment, String name, ByteArrayOutputStream log) {
+        List<Order> orders;
+        try {
+            orders = archive.readSegment(segment);
+        } catch (IOException e) {
+            e.printStackTrace(); // Leave the segment out rather than fail to open
+            return;
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            Entry current = entries.get(orders.get(i).getOrderId());
+            if (current == null || current.partition.startsWith(OrderArchive.PARTITION_PREFIX)
+                    && current.partition.compareTo(name) <= 0) {
+                log.writeBytes(frame(index(name, orders.get(i), new OrderJournal.Position(0, i))));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the latest copy of an order is the one in the given partition or archive segment.
+     */
+    synchronized boolean isLatest(String orderId, String partition) {
+        Entry entry = entries.get(orderId);
+        return entry != null && entry.partition.equals(partition);
+    }
+
+    /**
+     * Finds the entries matching every given criterion. The criterion with the fewest candidate
+     * orders is looked up first; the others are checked against the indexed fields of those
+     * candidates, so no order is read from disk.
+     *
+     * @param orderId        Order id, or null.
+     * @param from           First day to include, or null.
+     * @param to             Last day to include, or null.
+     * @param status         Current status, or null.
+     * @param deliveryOption Delivery option, or null.
+     * @param promoCode      Applied promo code (any case), or null.
+     * @return Matching entries grouped by partition or archive segment, in save order within each.
+     */
+    synchronized List<Entry> find(String orderId, LocalDate from, LocalDate to, String status,
+                                  String deliveryOption, String promoCode) {
+        NavigableMap<String, Set<String>> days = null;
+        long dayCount = 0;
+        if (from != null || to != null) {
+            days = byDate;
+            if (from != null) {
+                days = days.tailMap(from.toString(), true);
+            }
+            if (to != null) {
+                days = days.headMap(to.toString(), true);
+            }
+            for (Set<String> ids : days.values()) {
+                dayCount += ids.size();
+            }
+        }
+        String promoKey = normalizePromoCode(promoCode);
+        List<Set<String>> postings = new ArrayList<>();
+        if (status != null) {
+            postings.add(byStatus.getOrDefault(status, Collections.emptySet()));
+        }
+        if (deliveryOption != null) {
+            postings.add(byDeliveryOption.getOrDefault(deliveryOption, Collections.emptySet()));
+        }
+        if (promoKey != null) {
+            postings.add(byPromoCode.getOrDefault(promoKey, Collections.emptySet()));
+        }
+        if (orderId != null) {
+            postings.add(entries.containsKey(orderId) ? Collections.singleton(orderId) : Collections.emptySet());
+        }
+
+        // Start from the smallest candidate set
+        Collection<Set<String>> smallest = Collections.singletonList(entries.keySet());
+        long smallestSize = entries.size();
+        if (days != null && dayCount <= smallestSize) {
+            smallest = days.values();
+            smallestSize = dayCount;
+        }
+        for (Set<String> ids : postings) {
+            if (ids.size() < smallestSize) {
+                smallest = Collections.singletonList(ids);
+                smallestSize = ids.size();
+            }
+        }
+
+        String fromDate = from != null ? from.toString() : null;
+        String toDate = to != null ? to.toString() : null;
+        List<Entry> matches = new ArrayList<>();
+        for (Set<String> ids : smallest) {
+            for (String id : ids) {
+                Entry entry = entries.get(id);
+                if (days != null && (entry.date == null
+                        || fromDate != null && entry.date.compareTo(fromDate) < 0
+                        || toDate != null && entry.date.compareTo(toDate) > 0)
+                        || status != null && !status.equals(entry.status)
+                        || deliveryOption != null && !deliveryOption.equals(entry.deliveryOption)
+                        || promoKey != null && !promoKey.equals(entry.promoCode)) {
+                    continue;
+                }
+                matches.add(entry);
+            }
+        }
+        matches.sort((a, b) -> a.partition.equals(b.partition)
+                ? OrderJournal.compare(a.position, b.position) : a.partition.compareTo(b.partition));
+        return matches;
+    }
+
+    /**
+     * Number of indexed orders.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Applies an order to the in-memory index and returns the log record describing it.
+     */
+    private byte[] index(String partition, Order order, OrderJournal.Position position) {
+        Entry entry = new Entry(order.getOrderId(), share(partition), position, share(order.getDate()),
+                share(order.getCurrentStatus()), share(order.getDeliveryOption()), order.getAppliedPromotion() != null
+                ? share(normalizePromoCode(order.getAppliedPromotion().getPromoCode())) : null);
+        put(entry);
+        return entryRecord(entry);
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.orderId, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        link(byDate, entry.date, entry.orderId);
+        link(byStatus, entry.status, entry.orderId);
+        link(byDeliveryOption, entry.deliveryOption, entry.orderId);
+        link(byPromoCode, entry.promoCode, entry.orderId);
+        OrderJournal.Position last = lastIndexed.get(entry.partition);
+        if (last == null || OrderJournal.compare(entry.position, last) > 0) {
+            lastIndexed.put(entry.partition, entry.position);
+        }
+        logRecords++;
+    }
+
+    private void unlink(Entry entry) {
+        unlink(byDate, entry.date, entry.orderId);
+        unlink(byStatus, entry.status, entry.orderId);
+        unlink(byDeliveryOption, entry.deliveryOption, entry.orderId);
+        unlink(byPromoCode, entry.promoCode, entry.orderId);
+    }
+
+    private void removePartition(String partition) {
+        entries.values().removeIf(entry -> {
+            if (entry.partition.equals(partition)) {
+                unlink(entry);
+                return true;
+            }
+            return false;
+        });
+        lastIndexed.remove(partition);
+    }
+
+    private static void link(Map<String, Set<String>> postings, String key, String orderId) {
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(orderId);
+        }
+    }
+
+    private static void unlink(Map<String, Set<String>> postings, String key, String orderId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(orderId);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static String normalizePromoCode(String promoCode) {
+        return promoCode != null ? promoCode.toUpperCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Reads the index log into memory. The whole file is read at once and parsed in place.
+     *
+     * @return True if the log ends in a damaged record and should be rewritten.
+     */
+    private boolean load() throws IOException {
+        writer.flush();
+        if (!Files.exists(logFile)) {
+            return false;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= OrderJournal.HEADER_SIZE) {
+            int start = log.position();
+            int length = log.getInt();
+            int checksum = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                log.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(log.array(), log.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                log.position(start);
+                break;
+            }
+            if (log.get() == ENTRY) {
+                String orderId = getString(log);
+                String partition = share(getString(log));
+                OrderJournal.Position position = new OrderJournal.Position(log.getInt(), log.getLong());
+                put(new Entry(orderId, partition, position, share(getString(log)), share(getString(log)),
+                        share(getString(log)), share(getString(log))));
+            } else {
+                removePartition(getString(log));
+                logRecords++;
+            }
+            log.position(start + OrderJournal.HEADER_SIZE + length);
+        }
+        return log.hasRemaining();
+    }
+
+    /**
+     * Rewrites the log with one record per indexed order.
+     */
+    private void compact() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        for (Entry entry : entries.values()) {
+            log.write(frame(entryRecord(entry)));
+        }
+        logRecords = entries.size();
+        writer.replace(logFile, log.toByteArray());
+    }
+
+    private static byte[] entryRecord(Entry entry) {
+        byte[][] strings = {utf8(entry.orderId), utf8(entry.partition), utf8(entry.date), utf8(entry.status),
+                utf8(entry.deliveryOption), utf8(entry.promoCode)};
+        int length = 1 + 4 + 8;
+        for (byte[] string : strings) {
+            length += 2 + (string != null ? string.length : 0);
+        }
+        ByteBuffer record = ByteBuffer.allocate(length).put(ENTRY);
+        putString(record, strings[0]);
+        putString(record, strings[1]);
+        record.putInt(entry.position.segment).putLong(entry.position.offset);
+        for (int i = 2; i < strings.length; i++) {
+            putString(record, strings[i]);
+        }
+        return record.array();
+    }
+
+    private static byte[] dropRecord(String partition) {
+        byte[] name = utf8(partition);
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + name.length).put(DROP_PARTITION);
+        putString(record, name);
+        return record.array();
+    }
+
+    /**
+     * Wraps a record body with the same length and checksum header as the order journal.
+     */
+    private static byte[] frame(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return ByteBuffer.allocate(OrderJournal.HEADER_SIZE + body.length)
+                .putInt(body.length)
+                .putInt((int) crc.getValue())
+                .put(body)
+                .array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Writes a string as a short length (-1 for null) followed by its UTF-8 bytes.
+     */
+    private static void putString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) utf8.length).put(utf8);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private String share(String value) {
+        return value != null ? sharedStrings.computeIfAbsent(value, v -> v) : null;
+    }
+
+    /**
+     * Indexed fields of one order and the journal position of its latest record.
+     */
+    static class Entry {
+        final String orderId;
+        final String partition;
+        final OrderJournal.Position position;
+        final String date;
+        final String status;
+        final String deliveryOption;
+        final String promoCode;
+
+        Entry(String orderId, String partition, OrderJournal.Position position, String date, String status,
+              String deliveryOption, String promoCode) {
+            this.orderId = orderId;
+            this.partition = partition;
+            this.position = position;
+            this.date = date;
+            this.status = status;
+            this.deliveryOption = deliveryOption;
+            this.promoCode = promoCode;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package manager;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import model.Order;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of orders.
+ * <p>
+ * Every saved order becomes one record at the end of the active segment file, so the cost of a
+ * save does not depend on how many orders are already stored. A record is laid out as
+ * {@code [int length][int crc32][short idLength][orderId][order JSON]}, where {@code length} and the
+ * checksum cover everything after the checksum. Replaying the segments in order rebuilds the order
+ * list; a later record for the same order id replaces the earlier one.
+ * <p>
+ * Writes go through the {@link PersistenceWriter}, so appends return immediately and appends that
+ * arrive close together share one write and one sync. Reads wait for queued appends first.
+ */
+public class OrderJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long MAX_SEGMENT_SIZE = 16L * 1024 * 1024; // Roll over to a new segment at 16 MB
+    static final int HEADER_SIZE = 8; // length + checksum
+
+    private final Path directory;
+    private final Gson gson;
+    private final PersistenceWriter writer = PersistenceWriter.getInstance();
+    private int activeSegment;
+    private long activeSize;                 // End of the active segment once queued appends are written
+    private volatile boolean writeFailed;    // A queued append failed, so activeSize may be past the end
+    private AppendListener appendListener;
+
+    /**
+     * Opens (or creates) a journal in the given directory.
+     *
+     * @param directory Directory holding the segment files.
+     * @param gson      Gson instance used to encode each order.
+     * @throws IOException If the directory or active segment cannot be opened.
+     */
+    public OrderJournal(Path directory, Gson gson) throws IOException {
+        this.directory = directory;
+        this.gson = gson;
+        Files.createDirectories(directory);
+        List<Integer> segments = listSegments();
+        activeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        openActiveSegment();
+    }
+
+    /**
+     * Queues a single order to be appended to the journal.
+     *
+     * @param order Order that was placed or changed.
+     * @return Future completed once the record is on disk.
+     */
+    public synchronized CompletableFuture<Void> append(Order order) {
+        try {
+            recoverFromFailedWrite();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        ByteBuffer record = encode(order);
+        rollIfNeeded(record.remaining());
+        Position position = new Position(activeSegment, activeSize);
+        CompletableFuture<Void> write = write(record.array());
+        if (appendListener != null) {
+            appendListener.recordAppended(order, position);
+        }
+        return write;
+    }
+
+    /**
+     * Queues several orders to be appended, as one write per segment.
+     *
+     * @param orders Orders that were placed or changed.
+     * @return Future completed once every record is on disk.
+     */
+    public synchronized CompletableFuture<Void> appendAll(List<Order> orders) {
+        try {
+            recoverFromFailedWrite();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<Position> positions = new ArrayList<>(orders.size());
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (Order order : orders) {
+            ByteBuffer record = encode(order);
+            if (activeSize + batch.size() + record.remaining() > MAX_SEGMENT_SIZE && batch.size() > 0) {
+                writes.add(write(batch.toByteArray()));
+                batch.reset();
+            }
+            rollIfNeeded(batch.size() + record.remaining());
+            positions.add(new Position(activeSegment, activeSize + batch.size()));
+            batch.write(record.array(), 0, record.remaining());
+        }
+        if (batch.size() > 0) {
+            writes.add(write(batch.toByteArray()));
+        }
+        if (appendListener != null) {
+            for (int i = 0; i < orders.size(); i++) {
+                appendListener.recordAppended(orders.get(i), positions.get(i));
+            }
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Rebuilds the current list of orders by replaying every segment.
+     *
+     * @return Orders in the order they were first saved, each in its latest saved form.
+     * @throws IOException If a segment cannot be read.
+     */
+    public synchronized List<Order> replay() throws IOException {
+        Map<String, Order> orders = new LinkedHashMap<>();
+        replayFrom(null, order -> orders.put(order.getOrderId(), order));
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Replays the records written at or after a position, oldest first.
+     *
+     * @param from     Position returned by {@link #position()}, or null to replay everything.
+     * @param consumer Receives every decoded record, including superseded ones.
+     * @throws IOException If a segment cannot be read.
+     */
+    public synchronized void replayFrom(Position from, Consumer<Order> consumer) throws IOException {
+        scan(from, (order, position) -> consumer.accept(order));
+    }
+
+    /**
+     * Replays the records written at or after a position together with the position of each record.
+     *
+     * @param from     Position to start at, or null to scan everything.
+     * @param consumer Receives every decoded record and where it starts.
+     * @throws IOException If a segment cannot be read.
+     */
+    synchronized void scan(Position from, AppendListener consumer) throws IOException {
+        writer.flush();
+        for (int segment : listSegments()) {
+            if (from != null && segment < from.segment) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(segmentPath(segment))))) {
+                long offset = 0;
+                if (from != null && segment == from.segment) {
+                    in.skipNBytes(from.offset);
+                    offset = from.offset;
+                }
+                byte[] body;
+                while ((body = readRecord(in)) != null) {
+                    consumer.recordAppended(decode(body), new Position(segment, offset));
+                    offset += HEADER_SIZE + body.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the records starting at the given positions, opening each segment once.
+     *
+     * @param positions Record positions, e.g. from an {@link AppendListener}.
+     * @return The order at each position, or null where no valid record starts there.
+     * @throws IOException If a segment cannot be read.
+     */
+    public synchronized List<Order> read(List<Position> positions) throws IOException {
+        writer.flush();
+        Integer[] byLocation = new Integer[positions.size()];
+        for (int i = 0; i < byLocation.length; i++) {
+            byLocation[i] = i;
+        }
+        Arrays.sort(byLocation, (a, b) -> compare(positions.get(a), positions.get(b)));
+
+        Order[] orders = new Order[positions.size()];
+        FileChannel channel = null;
+        int openSegment = -1;
+        try {
+            for (int i : byLocation) {
+                Position position = positions.get(i);
+                if (position.segment != openSegment) {
+                    if (channel != null) {
+                        channel.close();
+                        channel = null;
+                    }
+                    openSegment = position.segment;
+                    Path path = segmentPath(openSegment);
+                    if (Files.exists(path)) {
+                        channel = FileChannel.open(path, StandardOpenOption.READ);
+                    }
+                }
+                if (channel != null) {
+                    byte[] body = readRecord(channel, position.offset);
+                    orders[i] = body != null ? decode(body) : null;
+                }
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        return Arrays.asList(orders);
+    }
+
+    /**
+     * Registers a listener told about every record appended from now on.
+     */
+    public synchronized void setAppendListener(AppendListener appendListener) {
+        this.appendListener = appendListener;
+    }
+
+    /**
+     * Returns the position just past the last queued record, once it has been written.
+     */
+    public synchronized Position position() throws IOException {
+        writer.flush();
+        recoverFromFailedWrite();
+        return new Position(activeSegment, activeSize);
+    }
+
+    /**
+     * Streams the current orders one at a time without building the full list.
+     * <p>
+     * A first pass reads only the order ids to find the latest record of each order; the second
+     * pass decodes those records lazily as the stream is consumed. Orders appended after the stream
+     * was opened are not included. The stream holds an open file and must be closed.
+     *
+     * @return Lazily decoded orders in the order they were first saved.
+     * @throws IOException If the segments cannot be listed or indexed.
+     */
+    public Stream<Order> stream() throws IOException {
+        List<Integer> segments;
+        Map<String, Long> latestRecord = new HashMap<>();
+        synchronized (this) {
+            writer.flush();
+            segments = listSegments();
+            long sequence = 0;
+            for (int segment : segments) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Files.newInputStream(segmentPath(segment))))) {
+                    byte[] body;
+                    while ((body = readRecord(in)) != null) {
+                        latestRecord.put(recordId(body), sequence++);
+                    }
+                }
+            }
+        }
+        RecordIterator iterator = new RecordIterator(segments, latestRecord);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    /**
+     * Checks whether the journal has any records yet.
+     */
+    public synchronized boolean isEmpty() throws IOException {
+        writer.flush();
+        for (int segment : listSegments()) {
+            if (Files.size(segmentPath(segment)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for queued appends to reach the disk.
+     */
+    @Override
+    public void close() {
+        writer.flush();
+    }
+
+    /**
+     * Encodes an order as a complete journal record.
+     */
+    ByteBuffer encode(Order order) {
+        byte[] id = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+        byte[] json = gson.toJson(order).getBytes(StandardCharsets.UTF_8);
+        int length = 2 + id.length + json.length;
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.putInt(length);
+        record.putInt(0); // Checksum placeholder
+        record.putShort((short) id.length);
+        record.put(id);
+        record.put(json);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Decodes the body of a record (everything after the header) back into an order.
+     */
+    Order decode(byte[] body) {
+        int jsonOffset = 2 + idLength(body);
+        JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(body, jsonOffset, body.length - jsonOffset), StandardCharsets.UTF_8));
+        return gson.fromJson(reader, Order.class);
+    }
+
+    /**
+     * Reads the order id stored in front of a record's JSON without decoding the order.
+     */
+    static String recordId(byte[] body) {
+        return new String(body, 2, idLength(body), StandardCharsets.UTF_8);
+    }
+
+    private static int idLength(byte[] body) {
+        return ((body[0] & 0xFF) << 8) | (body[1] & 0xFF);
+    }
+
+    /**
+     * Reads the next record body, or returns null at the end of the segment or at a torn record.
+     */
+    static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        int checksum;
+        try {
+            length = in.readInt();
+            checksum = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 2) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        try {
+            in.readFully(body);
+        } catch (EOFException e) {
+            return null; // Incomplete record left by an interrupted write
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == checksum ? body : null;
+    }
+
+    /**
+     * Reads the record body starting at an offset, or returns null if there is no valid record there.
+     */
+    private static byte[] readRecord(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, offset);
+        int length = header.getInt(0);
+        if (header.hasRemaining() || length <= 2 || offset + HEADER_SIZE + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, offset + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        return (int) crc.getValue() == header.getInt(4) ? body.array() : null;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+            // Keep reading until the buffer is full or the file ends
+        }
+    }
+
+    /**
+     * Orders positions by segment, then by offset.
+     */
+    static int compare(Position a, Position b) {
+        return a.segment != b.segment ? Integer.compare(a.segment, b.segment) : Long.compare(a.offset, b.offset);
+    }
+
+    private void rollIfNeeded(int incomingBytes) {
+        if (activeSize > 0 && activeSize + incomingBytes > MAX_SEGMENT_SIZE) {
+            activeSegment++;
+            activeSize = 0;
+        }
+    }
+
+    /**
+     * Queues bytes at the end of the active segment. The size is advanced when the write is
+     * queued, so that the appends queued behind it get their positions; if the write fails, the
+     * next append or {@link #position()} resyncs it with the file.
+     */
+    private CompletableFuture<Void> write(byte[] bytes) {
+        activeSize += bytes.length;
+        CompletableFuture<Void> write = writer.append(segmentPath(activeSegment), bytes);
+        write.whenComplete((ignored, error) -> {
+            if (error != null) {
+                writeFailed = true; // Not resynced here: the writer thread must not wait for this lock
+            }
+        });
+        return write;
+    }
+
+    /**
+     * After a failed append, waits for the queued appends, takes the end of the active segment
+     * from the file again (cutting off a torn record), and tells the listener that positions
+     * reported since the failure may be wrong.
+     */
+    private void recoverFromFailedWrite() throws IOException {
+        if (!writeFailed) {
+            return;
+        }
+        writer.flush();
+        writeFailed = false;
+        openActiveSegment();
+        if (appendListener != null) {
+            appendListener.appendFailed();
+        }
+    }
+
+    /**
+     * Finds the end of the active segment, cutting off any torn record left at its end.
+     * <p>
+     * Only record headers are read while walking the segment; an interrupted append can only
+     * damage the last record, so that is the only one whose checksum is verified.
+     */
+    private void openActiveSegment() throws IOException {
+        writer.flush();
+        Path path = segmentPath(activeSegment);
+        if (!Files.exists(path)) {
+            activeSize = 0;
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            long position = 0;
+            long lastRecord = -1;
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                int length = header.getInt(0);
+                if (length <= 2 || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                lastRecord = position;
+                position += HEADER_SIZE + length;
+            }
+            if (lastRecord >= 0 && !hasValidChecksum(channel, lastRecord)) {
+                position = lastRecord;
+            }
+            if (size > position) {
+                channel.truncate(position);
+            }
+            activeSize = position;
+        }
+    }
+
+    private static boolean hasValidChecksum(FileChannel channel, long recordStart) throws IOException {
+        return readRecord(channel, recordStart) != null;
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A point in the journal: a segment number and a byte offset within it.
+     */
+    public static class Position {
+        public final int segment;
+        public final long offset;
+
+        public Position(int segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Receives each record appended to (or scanned from) a journal with the position it starts at.
+     */
+    public interface AppendListener {
+        void recordAppended(Order order, Position position);
+
+        /**
+         * Called once the journal has recovered from a failed append. Records reported since the
+         * failure may be missing or start at other positions, so anything keyed by position
+         * should be rebuilt with {@link #scan}.
+         */
+        default void appendFailed() {
+        }
+    }
+
+    /**
+     * Walks the segments record by record, decoding only the latest record of each order.
+     */
+    private class RecordIterator implements Iterator<Order>, Closeable {
+        private final Iterator<Integer> segments;
+        private final Map<String, Long> latestRecord;
+        private DataInputStream in;
+        private long sequence;
+        private Order next;
+
+        RecordIterator(List<Integer> segments, Map<String, Long> latestRecord) {
+            this.segments = segments.iterator();
+            this.latestRecord = latestRecord;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (in == null) {
+                        if (!segments.hasNext()) {
+                            return false;
+                        }
+                        in = new DataInputStream(new BufferedInputStream(
+                                Files.newInputStream(segmentPath(segments.next()))));
+                    }
+                    byte[] body = readRecord(in);
+                    if (body == null) {
+                        in.close();
+                        in = null;
+                        continue;
+                    }
+                    Long latest = latestRecord.get(recordId(body));
+                    if (latest != null && latest == sequence) {
+                        next = decode(body);
+                    }
+                    sequence++;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Order order = next;
+            next = null;
+            return order;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (in != null) {
+                    in.close();
+                    in = null;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package manager;
+
+import model.Order;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up stored orders through the persistent {@link OrderIndex} (Builder Pattern).
+ * <p>
+ * Criteria are combined with AND. The most selective index is used to find candidates, the other
+ * criteria are checked against the index, and only the matching orders are read from the journal
+ * or the archive:
+ * <pre>
+ * List&lt;Order&gt; deliveries = new OrderQuery()
+ *         .setDate(LocalDate.now())
+ *         .setDeliveryOption("Delivery")
+ *         .list();
+ * </pre>
+ */
+public class OrderQuery {
+
+    private String orderId;
+    private LocalDate from;
+    private LocalDate to;
+    private String status;
+    private String deliveryOption;
+    private String promoCode;
+
+    /**
+     * Restricts the query to a single order.
+     */
+    public OrderQuery setOrderId(String orderId) {
+        this.orderId = orderId;
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders placed on one day.
+     */
+    public OrderQuery setDate(LocalDate date) {
+        return setDateRange(date, date);
+    }
+
+    /**
+     * Restricts the query to orders placed on or between two days. Either bound may be null.
+     */
+    public OrderQuery setDateRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders whose current status is the given one (e.g. "Delivered").
+     */
+    public OrderQuery setStatus(String status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders with the given delivery option ("Pickup" or "Delivery").
+     */
+    public OrderQuery setDeliveryOption(String deliveryOption) {
+        this.deliveryOption = deliveryOption;
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders that used a promo code; the code is matched ignoring case.
+     */
+    public OrderQuery setPromoCode(String promoCode) {
+        this.promoCode = promoCode;
+        return this;
+    }
+
+    /**
+     * Counts the matching orders using the index alone.
+     */
+    public int count() {
+        try {
+            return findEntries().size();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the ids of the matching orders using the index alone.
+     */
+    public List<String> listIds() {
+        List<String> ids = new ArrayList<>();
+        try {
+            for (OrderIndex.Entry entry : findEntries()) {
+                ids.add(entry.orderId);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    /**
+     * Reads the matching orders from the hot store and the archive. Archive segments are inflated
+     * only if they hold a match.
+     *
+     * @return Matching orders in their latest saved form.
+     */
+    public List<Order> list() {
+        List<Order> orders = new ArrayList<>();
+        try {
+            List<OrderIndex.Entry> matches = findEntries();
+            Map<String, List<OrderIndex.Entry>> byPartition = new LinkedHashMap<>();
+            for (OrderIndex.Entry entry : matches) {
+                byPartition.computeIfAbsent(entry.partition, key -> new ArrayList<>()).add(entry);
+            }
+
+            PartitionedOrderStore store = StorageManager.getOrderStore();
+            for (Map.Entry<String, List<OrderIndex.Entry>> partition : byPartition.entrySet()) {
+                List<Order> records;
+                if (partition.getKey().startsWith(OrderArchive.PARTITION_PREFIX)) {
+                    List<Integer> ordinals = new ArrayList<>();
+                    for (OrderIndex.Entry entry : partition.getValue()) {
+                        ordinals.add((int) entry.position.offset);
+                    }
+                    records = StorageManager.getOrderArchive().read(
+                            partition.getKey().substring(OrderArchive.PARTITION_PREFIX.length()), ordinals);
+                } else {
+                    List<OrderJournal.Position> positions = new ArrayList<>();
+                    for (OrderIndex.Entry entry : partition.getValue()) {
+                        positions.add(entry.position);
+                    }
+                    records = store.read(partition.getKey(), positions);
+                }
+                for (int i = 0; i < records.size(); i++) {
+                    Order order = records.get(i);
+                    // Skip entries whose record was lost in a crash and overwritten since
+                    if (order != null && order.getOrderId().equals(partition.getValue().get(i).orderId)) {
+                        orders.add(order);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return orders;
+    }
+
+    private List<OrderIndex.Entry> findEntries() throws IOException {
+        return StorageManager.getOrderIndex().find(orderId, from, to, status, deliveryOption, promoCode);
+    }
+}
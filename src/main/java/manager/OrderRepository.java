@@ -0,0 +1,53 @@
+package manager;
+
+import model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Persistence of orders, independent of the storage technology behind it.
+ * <p>
+ * Use {@link OrderRepositoryFactory#getRepository()} to obtain the configured implementation.
+ * Like {@link StorageManager}, implementations report storage errors and return empty results
+ * rather than throwing.
+ */
+public interface OrderRepository {
+
+    /**
+     * Saves a placed or changed order, replacing any earlier version with the same id.
+     */
+    void save(Order order);
+
+    /**
+     * Saves several orders in one batch.
+     */
+    void saveAll(List<Order> orders);
+
+    /**
+     * Finds an order by id.
+     *
+     * @return The order, or null if it is not stored.
+     */
+    Order findById(String orderId);
+
+    /**
+     * Returns every stored order.
+     */
+    List<Order> findAll();
+
+    /**
+     * Returns the orders dated on or between two days.
+     */
+    List<Order> findByDate(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the orders whose current status is the given one.
+     */
+    List<Order> findByStatus(String status);
+
+    /**
+     * Number of stored orders.
+     */
+    int count();
+}
@@ -0,0 +1,36 @@
+package manager;
+
+/**
+ * Creates the configured {@link OrderRepository} (Factory Pattern).
+ * <p>
+ * The implementation is chosen with the {@code orders.repository} system property: {@code file}
+ * (the default) for the file-based journal, or {@code sql} for the embedded H2 database.
+ */
+public class OrderRepositoryFactory {
+
+    public static final String REPOSITORY_PROPERTY = "orders.repository";
+    private static final String SQL_DATABASE = "orders-db";
+    private static OrderRepository repository;
+
+    /**
+     * Provides the shared repository, creating it on first use.
+     */
+    public static synchronized OrderRepository getRepository() {
+        if (repository == null) {
+            repository = createRepository(System.getProperty(REPOSITORY_PROPERTY, "file"));
+        }
+        return repository;
+    }
+
+    /**
+     * Creates a new repository of the given kind.
+     *
+     * @param kind "file" or "sql".
+     */
+    public static OrderRepository createRepository(String kind) {
+        if (kind.equalsIgnoreCase("sql")) {
+            return new SqlOrderRepository("jdbc:h2:file:./" + SQL_DATABASE);
+        }
+        return new FileOrderRepository();
+    }
+}
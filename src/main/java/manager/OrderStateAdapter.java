@@ -0,0 +1,63 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.DeliveredState;
+import model.InPreparationState;
+import model.OrderPlacedState;
+import model.OrderState;
+import model.OutForDeliveryState;
+
+import java.io.IOException;
+
+/**
+ * Persists an {@link OrderState} as its status name so it can be restored from JSON.
+ */
+public class OrderStateAdapter extends TypeAdapter<OrderState> {
+
+    @Override
+    public void write(JsonWriter out, OrderState state) throws IOException {
+        if (state == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(state.getStatus());
+    }
+
+    @Override
+    public OrderState read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return new OrderPlacedState();
+        }
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            in.skipValue(); // Older files stored the state object without any fields
+            return new OrderPlacedState();
+        }
+        return fromStatus(in.nextString());
+    }
+
+    /**
+     * Maps a status name back to its state object.
+     *
+     * @param status Status as returned by {@link OrderState#getStatus()}.
+     * @return Matching state, or the initial state if the status is unknown.
+     */
+    public static OrderState fromStatus(String status) {
+        if (status == null) {
+            return new OrderPlacedState();
+        }
+        switch (status) {
+            case "In Preparation":
+                return new InPreparationState();
+            case "Out for Delivery":
+                return new OutForDeliveryState();
+            case "Delivered":
+                return new DeliveredState();
+            default:
+                return new OrderPlacedState();
+        }
+    }
+}
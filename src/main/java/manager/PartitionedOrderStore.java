@@ -0,0 +1,367 @@
+package manager;
+
+import com.google.gson.Gson;
+import model.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Order storage split into one {@link OrderJournal} per calendar month.
+ * <p>
+ * Orders are routed by {@link Order#getDate()} into a partition directory named after the month
+ * (e.g. {@code orders/2024-12}). Date-range queries open only the partitions that overlap the
+ * range, so queries over recent days stay fast however much history is stored, and whole months
+ * can be dropped or archived by removing their directory. Orders without a parsable date go to
+ * the {@value #UNDATED} partition.
+ */
+public class PartitionedOrderStore implements Closeable {
+
+    static final String UNDATED = "undated";
+
+    private final Path directory;
+    private final Gson gson;
+    private final TreeMap<String, OrderJournal> openPartitions = new TreeMap<>();
+    private final List<StoreListener> listeners = new ArrayList<>();
+
+    /**
+     * Opens (or creates) a partitioned store in the given directory.
+     *
+     * @param directory Directory holding one sub-directory per partition.
+     * @param gson      Gson instance used to encode orders.
+     * @throws IOException If the directory cannot be created.
+     */
+    public PartitionedOrderStore(Path directory, Gson gson) throws IOException {
+        this.directory = directory;
+        this.gson = gson;
+        Files.createDirectories(directory);
+        migrateUnpartitionedJournal();
+    }
+
+    /**
+     * Queues an order to be appended to the partition of its date.
+     *
+     * @return Future completed once the record is on disk.
+     */
+    public synchronized CompletableFuture<Void> append(Order order) throws IOException {
+        return partition(partitionOf(order.getDate())).append(order);
+    }
+
+    /**
+     * Queues several orders, writing each partition's share in one batch.
+     *
+     * @return Future completed once every record is on disk.
+     */
+    public synchronized CompletableFuture<Void> appendAll(List<Order> orders) throws IOException {
+        Map<String, List<Order>> byPartition = new LinkedHashMap<>();
+        for (Order order : orders) {
+            byPartition.computeIfAbsent(partitionOf(order.getDate()), key -> new ArrayList<>()).add(order);
+        }
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Map.Entry<String, List<Order>> entry : byPartition.entrySet()) {
+            writes.add(partition(entry.getKey()).appendAll(entry.getValue()));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Replays every partition, oldest month first.
+     */
+    public synchronized List<Order> replay() throws IOException {
+        List<Order> orders = new ArrayList<>();
+        for (String name : listPartitions()) {
+            orders.addAll(partition(name).replay());
+        }
+        return orders;
+    }
+
+    /**
+     * Replays one partition.
+     *
+     * @return The partition's orders, each in its latest saved form.
+     */
+    public synchronized List<Order> replayPartition(String name) throws IOException {
+        return partition(name).replay();
+    }
+
+    /**
+     * Captures the current end of every partition's journal.
+     *
+     * @return Journal position per partition name.
+     */
+    public synchronized Map<String, OrderJournal.Position> positions() throws IOException {
+        Map<String, OrderJournal.Position> positions = new LinkedHashMap<>();
+        for (String name : listPartitions()) {
+            positions.put(name, partition(name).position());
+        }
+        return positions;
+    }
+
+    /**
+     * Replays only the records written after the given positions. Partitions without a position
+     * are replayed in full.
+     *
+     * @param positions Positions from {@link #positions()}.
+     * @param consumer  Receives every decoded record, oldest month first.
+     */
+    public synchronized void replayAfter(Map<String, OrderJournal.Position> positions,
+                                         Consumer<Order> consumer) throws IOException {
+        for (String name : listPartitions()) {
+            partition(name).replayFrom(positions.get(name), consumer);
+        }
+    }
+
+    /**
+     * Replays one partition together with the position of each record.
+     *
+     * @param name     Partition name.
+     * @param from     Position to start at, or null for the whole partition.
+     * @param consumer Receives every decoded record, including superseded ones.
+     */
+    synchronized void scanPartition(String name, OrderJournal.Position from,
+                                    OrderJournal.AppendListener consumer) throws IOException {
+        partition(name).scan(from, consumer);
+    }
+
+    /**
+     * Reads the records at the given positions of one partition.
+     *
+     * @return The order at each position, or null where no valid record starts there.
+     */
+    public synchronized List<Order> read(String name, List<OrderJournal.Position> positions) throws IOException {
+        if (!listPartitions().contains(name)) {
+            return new ArrayList<>(Collections.nCopies(positions.size(), (Order) null));
+        }
+        return partition(name).read(positions);
+    }
+
+    /**
+     * Streams every stored order lazily, oldest month first. The stream must be closed.
+     */
+    public Stream<Order> stream() throws IOException {
+        return streamPartitions(listPartitions());
+    }
+
+    /**
+     * Streams the orders dated on or between two dates, opening only the partitions in range.
+     * The stream must be closed.
+     *
+     * @param from First day to include.
+     * @param to   Last day to include.
+     * @return Lazily decoded orders within the range.
+     */
+    public Stream<Order> query(LocalDate from, LocalDate to) throws IOException {
+        String first = YearMonth.from(from).toString();
+        String last = YearMonth.from(to).toString();
+        List<String> inRange = new ArrayList<>();
+        for (String name : listPartitions()) {
+            if (!name.equals(UNDATED) && name.compareTo(first) >= 0 && name.compareTo(last) <= 0) {
+                inRange.add(name);
+            }
+        }
+        String fromDate = from.toString();
+        String toDate = to.toString();
+        return streamPartitions(inRange).filter(order -> order.getDate().compareTo(fromDate) >= 0
+                && order.getDate().compareTo(toDate) <= 0);
+    }
+
+    /**
+     * Lists the partition names in chronological order; the undated partition comes last.
+     */
+    public synchronized List<String> listPartitions() throws IOException {
+        TreeSet<String> names = new TreeSet<>(openPartitions.keySet()); // Includes partitions with queued writes
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.equals(UNDATED) || isMonth(name))
+                    .forEach(names::add);
+        }
+        return new ArrayList<>(names); // "yyyy-MM" sorts chronologically and before "undated"
+    }
+
+    /**
+     * Deletes every monthly partition before the given month.
+     *
+     * @param month First month to keep.
+     * @return Names of the dropped partitions.
+     */
+    public synchronized List<String> dropPartitionsBefore(YearMonth month) throws IOException {
+        List<String> dropped = new ArrayList<>();
+        for (String name : listPartitions()) {
+            if (!name.equals(UNDATED) && name.compareTo(month.toString()) < 0) {
+                dropPartition(name);
+                dropped.add(name);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Deletes one partition and all of its segment files.
+     */
+    public synchronized void dropPartition(String name) throws IOException {
+        OrderJournal journal = openPartitions.remove(name);
+        if (journal != null) {
+            journal.close(); // Queued appends must land before the directory goes away
+        }
+        Path partitionDir = directory.resolve(name);
+        try (Stream<Path> files = Files.list(partitionDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(partitionDir);
+        for (StoreListener listener : listeners) {
+            listener.partitionDropped(name);
+        }
+    }
+
+    /**
+     * Adds a listener told about every order appended and every partition dropped.
+     */
+    public synchronized void addListener(StoreListener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(StoreListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks whether any partition holds records.
+     */
+    public synchronized boolean isEmpty() throws IOException {
+        for (String name : listPartitions()) {
+            if (!partition(name).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (OrderJournal journal : openPartitions.values()) {
+            journal.close();
+        }
+        openPartitions.clear();
+    }
+
+    /**
+     * Returns the partition name for an order date ("yyyy-MM", or {@value #UNDATED}).
+     */
+    static String partitionOf(String date) {
+        if (date == null) {
+            return UNDATED;
+        }
+        try {
+            return YearMonth.from(LocalDate.parse(date)).toString();
+        } catch (DateTimeParseException e) {
+            return UNDATED;
+        }
+    }
+
+    private Stream<Order> streamPartitions(List<String> names) {
+        return names.stream().flatMap(name -> {
+            try {
+                return partitionJournal(name).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private synchronized OrderJournal partitionJournal(String name) throws IOException {
+        return partition(name);
+    }
+
+    private OrderJournal partition(String name) throws IOException {
+        OrderJournal journal = openPartitions.get(name);
+        if (journal == null) {
+            journal = new OrderJournal(directory.resolve(name), gson);
+            journal.setAppendListener(new OrderJournal.AppendListener() {
+                @Override
+                public void recordAppended(Order order, OrderJournal.Position position) {
+                    for (StoreListener listener : listeners) {
+                        listener.orderAppended(name, order, position);
+                    }
+                }
+
+                @Override
+                public void appendFailed() {
+                    for (StoreListener listener : listeners) {
+                        listener.appendFailed(name);
+                    }
+                }
+            });
+            openPartitions.put(name, journal);
+        }
+        return journal;
+    }
+
+    private static boolean isMonth(String name) {
+        try {
+            YearMonth.parse(name);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Listener interface to keep derived data (such as indexes) in step with the store.
+     */
+    public interface StoreListener {
+        void orderAppended(String partition, Order order, OrderJournal.Position position);
+
+        void partitionDropped(String partition);
+
+        /**
+         * Called when an append to a partition failed; positions reported for it since then may
+         * be wrong. See {@link OrderJournal.AppendListener#appendFailed()}.
+         */
+        default void appendFailed(String partition) {
+        }
+    }
+
+    /**
+     * Moves orders from an unpartitioned journal (segment files directly in the store directory)
+     * into monthly partitions.
+     */
+    private void migrateUnpartitionedJournal() throws IOException {
+        boolean hasRootSegments;
+        try (Stream<Path> files = Files.list(directory)) {
+            hasRootSegments = files.anyMatch(path -> Files.isRegularFile(path)
+                    && path.getFileName().toString().endsWith(".log"));
+        }
+        if (!hasRootSegments) {
+            return;
+        }
+        try (OrderJournal legacy = new OrderJournal(directory, gson)) {
+            appendAll(legacy.replay()).join();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && file.getFileName().toString().endsWith(".log")) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single background thread that performs all file writes using group commit (Singleton Pattern).
+ * <p>
+ * Callers queue a request and get a future back immediately, so file I/O never runs on the
+ * caller's thread (usually the Swing EDT). The writer collects requests that arrive within a short
+ * window and merges them per file: appends to the same file become one write, and a full-file
+ * replacement supersedes everything queued for that file before it. Each file touched by a batch
+ * is written once and synced once, after which every request in the batch completes.
+ */
+public class PersistenceWriter {
+
+    private static final long COALESCE_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static PersistenceWriter instance;
+
+    private final BlockingQueue<WriteRequest> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong syncCount = new AtomicLong();
+
+    private PersistenceWriter() {
+        Thread writerThread = new Thread(this::run, "persistence-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "persistence-writer-shutdown"));
+    }
+
+    /**
+     * Provides the Singleton instance of PersistenceWriter.
+     */
+    public static synchronized PersistenceWriter getInstance() {
+        if (instance == null) {
+            instance = new PersistenceWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a full replacement of a file's content. The new content is written to a temporary
+     * file and moved over the target, so readers never see a half-written file.
+     *
+     * @param path    File to replace.
+     * @param content New content.
+     * @return Future completed once the content is on disk.
+     */
+    public CompletableFuture<Void> replace(Path path, byte[] content) {
+        return submit(new WriteRequest(path.toAbsolutePath().normalize(), content, true));
+    }
+
+    /**
+     * Queues bytes to be appended to a file, creating it if necessary.
+     *
+     * @param path    File to append to.
+     * @param content Bytes to append.
+     * @return Future completed once the bytes are on disk.
+     */
+    public CompletableFuture<Void> append(Path path, byte[] content) {
+        return submit(new WriteRequest(path.toAbsolutePath().normalize(), content, false));
+    }
+
+    /**
+     * Blocks until every request queued before this call has been written.
+     */
+    public void flush() {
+        submit(new WriteRequest(null, null, false)).join();
+    }
+
+    /**
+     * Number of write requests accepted so far.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Number of write system calls issued so far (one per file per batch).
+     */
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * Number of fsyncs issued so far (one per file per batch).
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+    private CompletableFuture<Void> submit(WriteRequest request) {
+        if (request.path != null) {
+            requestCount.incrementAndGet();
+        }
+        queue.add(request);
+        return request.future;
+    }
+
+    private void run() {
+        List<WriteRequest> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + COALESCE_WINDOW_NANOS;
+                long remaining;
+                // Keep collecting until the window closes, unless someone is waiting on a flush
+                while (!containsBarrier(batch, 0) && (remaining = deadline - System.nanoTime()) > 0) {
+                    WriteRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    int from = batch.size();
+                    batch.add(next);
+                    queue.drainTo(batch);
+                    if (containsBarrier(batch, from)) {
+                        break;
+                    }
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable t) {
+                // E.g. OutOfMemoryError while merging: fail this batch but keep writing, or every
+                // later flush() would wait forever
+                t.printStackTrace();
+                for (WriteRequest request : batch) {
+                    if (request.path == null) {
+                        request.future.complete(null); // Everything queued before it has been resolved
+                    } else {
+                        request.future.completeExceptionally(t);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes one batch: one write and one sync per file, then completes every request.
+     */
+    private void commit(List<WriteRequest> batch) {
+        Map<Path, List<WriteRequest>> byPath = new LinkedHashMap<>();
+        List<WriteRequest> barriers = new ArrayList<>();
+        for (WriteRequest request : batch) {
+            if (request.path == null) {
+                barriers.add(request);
+            } else {
+                byPath.computeIfAbsent(request.path, path -> new ArrayList<>()).add(request);
+            }
+        }
+
+        for (Map.Entry<Path, List<WriteRequest>> entry : byPath.entrySet()) {
+            List<WriteRequest> requests = entry.getValue();
+            try {
+                writeMerged(entry.getKey(), requests);
+                for (WriteRequest request : requests) {
+                    request.future.complete(null);
+                }
+            } catch (Throwable t) { // Including Errors, so the writer thread survives
+                for (WriteRequest request : requests) {
+                    request.future.completeExceptionally(t);
+                }
+            }
+        }
+        for (WriteRequest barrier : barriers) {
+            barrier.future.complete(null);
+        }
+    }
+
+    private void writeMerged(Path path, List<WriteRequest> requests) throws IOException {
+        int lastReplace = -1;
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i).replace) {
+                lastReplace = i;
+            }
+        }
+        int start = Math.max(lastReplace, 0);
+        ByteBuffer[] buffers = new ByteBuffer[requests.size() - start];
+        for (int i = start; i < requests.size(); i++) {
+            buffers[i - start] = ByteBuffer.wrap(requests.get(i).content);
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (lastReplace >= 0) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, buffers);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(channel, buffers);
+            }
+        }
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers); // Gathering write: all queued chunks in one call
+        }
+        writeCount.incrementAndGet();
+        channel.force(false);
+        syncCount.incrementAndGet();
+    }
+
+    private static boolean containsBarrier(List<WriteRequest> batch, int from) {
+        for (int i = from; i < batch.size(); i++) {
+            if (batch.get(i).path == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A queued write, or a flush barrier when {@code path} is null.
+     */
+    private static class WriteRequest {
+        private final Path path;
+        private final byte[] content;
+        private final boolean replace;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        WriteRequest(Path path, byte[] content, boolean replace) {
+            this.path = path;
+            this.content = content;
+            this.replace = replace;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.ExtraCheeseDecorator;
+import model.MenuCatalog;
+import model.Pizza;
+import model.PizzaDecorator;
+import model.SpecialPackagingDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written JSON mapping for {@link Pizza} and its decorators, without reflection.
+ * <p>
+ * A plain pizza keeps the field names of the reflective mapping, so existing files still load. A
+ * decorated pizza is written as {@code {"decorator":"ExtraCheese","pizza":{...}}} around the pizza
+ * it wraps, so decorators survive a save and load. Menu choices and toppings are written as
+ * {@link SharedStrings} ids, unless the adapter is created for plain text; the name is always text.
+ */
+public class PizzaAdapter extends TypeAdapter<Pizza> {
+
+    private static final String EXTRA_CHEESE = "ExtraCheese";
+    private static final String SPECIAL_PACKAGING = "SpecialPackaging";
+
+    private final boolean sharedIds;
+
+    public PizzaAdapter() {
+        this(true);
+    }
+
+    /**
+     * @param sharedIds False to write only text, for JSON that must be readable without
+     *                  {@value SharedStrings#FILE} (such as database rows).
+     */
+    public PizzaAdapter(boolean sharedIds) {
+        this.sharedIds = sharedIds;
+    }
+
+    @Override
+    public void write(JsonWriter out, Pizza pizza) throws IOException {
+        if (pizza == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (pizza instanceof PizzaDecorator) {
+            out.name("decorator").value(pizza instanceof ExtraCheeseDecorator ? EXTRA_CHEESE : SPECIAL_PACKAGING);
+            out.name("pizza");
+            write(out, ((PizzaDecorator) pizza).getDecoratedPizza());
+            out.endObject();
+            return;
+        }
+        out.name("name").value(pizza.getName());
+        out.name("crust");
+        writeChoice(out, pizza.getCrust(), MenuCatalog.CRUSTS);
+        out.name("sauce");
+        writeChoice(out, pizza.getSauce(), MenuCatalog.SAUCES);
+        out.name("cheese");
+        writeChoice(out, pizza.getCheese(), MenuCatalog.CHEESES);
+        if (pizza.getToppings() != null) {
+            out.name("toppings").beginArray();
+            for (String topping : pizza.getToppings()) {
+                writeChoice(out, topping, MenuCatalog.TOPPINGS);
+            }
+            out.endArray();
+        }
+        out.name("size");
+        writeChoice(out, pizza.getSize(), MenuCatalog.SIZES);
+        out.name("price").value(pizza.getPrice());
+        out.endObject();
+    }
+
+    @Override
+    public Pizza read(JsonReader in) throws IOException {
+        if (JsonFields.skipNull(in)) {
+            return null;
+        }
+        Pizza.PizzaBuilder builder = new Pizza.PizzaBuilder();
+        String decorator = null;
+        Pizza decorated = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    builder.setName(JsonFields.nextShared(in));
+                    break;
+                case "crust":
+                    builder.setCrust(JsonFields.nextShared(in));
+                    break;
+                case "sauce":
+                    builder.setSauce(JsonFields.nextShared(in));
+                    break;
+                case "cheese":
+                    builder.setCheese(JsonFields.nextShared(in));
+                    break;
+                case "toppings":
+                    builder.setToppings(readToppings(in));
+                    break;
+                case "size":
+                    builder.setSize(JsonFields.nextShared(in));
+                    break;
+                case "price":
+                    builder.setPrice(JsonFields.nextDouble(in));
+                    break;
+                case "decorator":
+                    decorator = JsonFields.nextString(in);
+                    break;
+                case "pizza":
+                    decorated = read(in); // Wrapped pizza of a decorator
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (decorated != null) {
+            if (EXTRA_CHEESE.equals(decorator)) {
+                return new ExtraCheeseDecorator(decorated);
+            }
+            if (SPECIAL_PACKAGING.equals(decorator)) {
+                return new SpecialPackagingDecorator(decorated);
+            }
+            return decorated;
+        }
+        return builder.build(); // Older files flattened decorators into a plain pizza
+    }
+
+    private void writeChoice(JsonWriter out, String value, String[] choices) throws IOException {
+        if (sharedIds) {
+            JsonFields.writeShared(out, value, choices);
+        } else {
+            out.value(value);
+        }
+    }
+
+    private static List<String> readToppings(JsonReader in) throws IOException {
+        if (JsonFields.skipNull(in)) {
+            return null;
+        }
+        List<String> toppings = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            toppings.add(JsonFields.nextShared(in));
+        }
+        in.endArray();
+        return toppings;
+    }
+}
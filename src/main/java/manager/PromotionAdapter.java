@@ -0,0 +1,80 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Promotion;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Hand-written JSON mapping for {@link Promotion}, without reflection. Dates are ISO-8601 strings.
+ */
+public class PromotionAdapter extends TypeAdapter<Promotion> {
+
+    @Override
+    public void write(JsonWriter out, Promotion promotion) throws IOException {
+        if (promotion == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("promoCode").value(promotion.getPromoCode());
+        out.name("promoName").value(promotion.getPromoName());
+        out.name("discountAmount").value(promotion.getDiscountAmount());
+        out.name("isActive").value(promotion.isActive());
+        out.name("startDate").value(promotion.getStartDate() != null ? promotion.getStartDate().toString() : null);
+        out.name("endDate").value(promotion.getEndDate() != null ? promotion.getEndDate().toString() : null);
+        out.name("condition").value(promotion.getCondition());
+        out.endObject();
+    }
+
+    @Override
+    public Promotion read(JsonReader in) throws IOException {
+        if (JsonFields.skipNull(in)) {
+            return null;
+        }
+        String promoCode = null;
+        String promoName = null;
+        double discountAmount = 0;
+        boolean isActive = false;
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        String condition = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "promoCode":
+                    promoCode = JsonFields.nextString(in);
+                    break;
+                case "promoName":
+                    promoName = JsonFields.nextString(in);
+                    break;
+                case "discountAmount":
+                    discountAmount = JsonFields.nextDouble(in);
+                    break;
+                case "isActive":
+                    isActive = JsonFields.nextBoolean(in);
+                    break;
+                case "startDate":
+                    startDate = parseDate(JsonFields.nextString(in));
+                    break;
+                case "endDate":
+                    endDate = parseDate(JsonFields.nextString(in));
+                    break;
+                case "condition":
+                    condition = JsonFields.nextString(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Promotion(promoCode, promoName, discountAmount, isActive, startDate, endDate, condition);
+    }
+
+    private static LocalDate parseDate(String date) {
+        return date != null ? LocalDate.parse(date) : null;
+    }
+}
@@ -0,0 +1,301 @@
+package manager;
+
+import model.Promotion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reader and writer of the promotions file ({@code promotions.dat}).
+ * <p>
+ * The file is {@code [int magic][int version][int count]} followed by one record per promotion:
+ * <pre>
+ * int   length of the rest of the record
+ * byte  flags (1 = active)
+ * int   start date as epoch day, or Integer.MIN_VALUE for none
+ * int   end date as epoch day, or Integer.MAX_VALUE for none
+ * str   promo code
+ * field* [byte tag][byte type][value], ended by tag 0
+ * </pre>
+ * Strings ({@code str}, field type UTF) are {@code [int length][UTF-8 bytes]}.
+ * Name, discount and condition are tagged fields, and a field's type says how to skip it, so a
+ * field added later is simply skipped by older readers and missing fields keep their defaults;
+ * the version changes only for incompatible layouts. Everything needed to tell whether a promotion
+ * can apply today comes before the fields, so {@link #read} decodes only promotions that are
+ * active and not yet over. The others are kept as {@link DormantPromotion}s: their raw records,
+ * decoded on demand and written back unchanged.
+ * <p>
+ * Files written with Java serialization by earlier versions are still read, as {@link Contents#isLegacy() legacy}.
+ */
+public final class PromotionFile {
+
+    private static final int MAGIC = 0x505A504D; // "PZPM"
+    private static final int VERSION = 1;
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+    private static final int NO_START = Integer.MIN_VALUE;
+    private static final int NO_END = Integer.MAX_VALUE;
+    private static final byte ACTIVE = 1;
+
+    // Field tags
+    private static final byte END = 0;
+    private static final byte NAME = 1;
+    private static final byte DISCOUNT = 2;
+    private static final byte CONDITION = 3;
+
+    // Field types
+    private static final byte UTF = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte BOOLEAN = 5;
+
+    private PromotionFile() {
+    }
+
+    /**
+     * What {@link #read} found in a file.
+     */
+    public static final class Contents {
+        private final List<Promotion> promotions;
+        private final List<DormantPromotion> dormant;
+        private final boolean legacy;
+
+        Contents(List<Promotion> promotions, List<DormantPromotion> dormant, boolean legacy) {
+            this.promotions = promotions;
+            this.dormant = dormant;
+            this.legacy = legacy;
+        }
+
+        /**
+         * Decoded promotions, in file order.
+         */
+        public List<Promotion> getPromotions() {
+            return promotions;
+        }
+
+        /**
+         * Inactive and expired promotions, not decoded, in file order.
+         */
+        public List<DormantPromotion> getDormant() {
+            return dormant;
+        }
+
+        /**
+         * True if the file was written with Java serialization and should be rewritten.
+         */
+        public boolean isLegacy() {
+            return legacy;
+        }
+    }
+
+    /**
+     * A promotion that was inactive or expired when the file was read, kept as its encoded record
+     * within the bytes of the file.
+     */
+    public static final class DormantPromotion {
+        private final byte[] file;
+        private final int offset;
+        private final int length;
+
+        DormantPromotion(byte[] file, int offset, int length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Tells whether the promotion ended before a day, without decoding it.
+         */
+        public boolean endsBefore(LocalDate day) {
+            return ByteBuffer.wrap(file).getInt(offset + 5) < day.toEpochDay(); // After the flags and start day
+        }
+
+        /**
+         * Decodes the full promotion.
+         *
+         * @throws IOException If the record is malformed.
+         */
+        public Promotion decode() throws IOException {
+            try {
+                return decodeRecord(ByteBuffer.wrap(file, offset, length));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Malformed promotion record", e);
+            }
+        }
+    }
+
+    /**
+     * Reads a promotions file, decoding only promotions that can apply on or after {@code today}.
+     *
+     * @return Contents, empty if the file does not exist.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static Contents read(Path file, LocalDate today) throws IOException {
+        if (!Files.exists(file)) {
+            return new Contents(new ArrayList<>(), new ArrayList<>(), false);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length >= 2 && ((bytes[0] & 0xFF) << 8 | bytes[1] & 0xFF) == JAVA_SERIALIZATION_MAGIC) {
+            return new Contents(readLegacy(bytes), new ArrayList<>(), true);
+        }
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a promotions file");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            int count = in.getInt();
+            long day = today.toEpochDay();
+            List<Promotion> promotions = new ArrayList<>();
+            List<DormantPromotion> dormant = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int length = in.getInt();
+                int start = in.position();
+                boolean active = (in.get(start) & ACTIVE) != 0;
+                int endDay = in.getInt(start + 5); // After the flags and start day
+                if (active && endDay >= day) {
+                    promotions.add(decodeRecord(in));
+                } else {
+                    dormant.add(new DormantPromotion(bytes, start, length));
+                }
+                in.position(start + length);
+            }
+            return new Contents(promotions, dormant, false);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(file + " is truncated or malformed", e);
+        }
+    }
+
+    /**
+     * Encodes promotions, followed by dormant promotions exactly as they were read.
+     */
+    public static byte[] encode(List<Promotion> promotions, List<DormantPromotion> dormant) {
+        ByteBuffer out = ByteBuffer.allocate(12 + 96 * (promotions.size() + dormant.size()));
+        out.putInt(MAGIC).putInt(VERSION).putInt(promotions.size() + dormant.size());
+        for (Promotion promotion : promotions) {
+            out = ensure(out, 4);
+            int lengthAt = out.position();
+            out.putInt(0); // Patched below
+            out = encodeRecord(out, promotion);
+            out.putInt(lengthAt, out.position() - lengthAt - 4);
+        }
+        for (DormantPromotion promotion : dormant) {
+            out = ensure(out, 4 + promotion.length);
+            out.putInt(promotion.length).put(promotion.file, promotion.offset, promotion.length);
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Copies a file written in the legacy format next to it, as {@code <name>.legacy}, before it
+     * is rewritten in the current format.
+     */
+    public static void keepLegacyCopy(Path file) throws IOException {
+        Files.copy(file, Paths.get(file + ".legacy"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer encodeRecord(ByteBuffer out, Promotion promotion) {
+        out = ensure(out, 9 + 2 + 8 + 1);
+        out.put(promotion.isActive() ? ACTIVE : 0);
+        out.putInt(promotion.getStartDate() != null ? (int) promotion.getStartDate().toEpochDay() : NO_START);
+        out.putInt(promotion.getEndDate() != null ? (int) promotion.getEndDate().toEpochDay() : NO_END);
+        out = writeString(out, promotion.getPromoCode() != null ? promotion.getPromoCode() : "");
+        if (promotion.getPromoName() != null) {
+            out = ensure(out, 2).put(NAME).put(UTF);
+            out = writeString(out, promotion.getPromoName());
+        }
+        out = ensure(out, 10).put(DISCOUNT).put(DOUBLE).putDouble(promotion.getDiscountAmount());
+        if (promotion.getCondition() != null) {
+            out = ensure(out, 2).put(CONDITION).put(UTF);
+            out = writeString(out, promotion.getCondition());
+        }
+        return ensure(out, 1).put(END);
+    }
+
+    private static Promotion decodeRecord(ByteBuffer in) throws IOException {
+        boolean active = (in.get() & ACTIVE) != 0;
+        int startDay = in.getInt();
+        int endDay = in.getInt();
+        String promoCode = readString(in);
+        String promoName = null;
+        double discountAmount = 0;
+        String condition = null;
+        for (byte tag = in.get(); tag != END; tag = in.get()) {
+            byte type = in.get();
+            if (tag == NAME && type == UTF) {
+                promoName = readString(in);
+            } else if (tag == DISCOUNT && type == DOUBLE) {
+                discountAmount = in.getDouble();
+            } else if (tag == CONDITION && type == UTF) {
+                condition = readString(in);
+            } else {
+                skip(in, type); // Written by a newer version
+            }
+        }
+        return new Promotion(promoCode, promoName, discountAmount, active,
+                startDay != NO_START ? LocalDate.ofEpochDay(startDay) : null,
+                endDay != NO_END ? LocalDate.ofEpochDay(endDay) : null, condition);
+    }
+
+    private static void skip(ByteBuffer in, byte type) throws IOException {
+        switch (type) {
+            case UTF -> in.position(in.position() + 4 + in.getInt(in.position()));
+            case DOUBLE, LONG -> in.position(in.position() + 8);
+            case INT -> in.position(in.position() + 4);
+            case BOOLEAN -> in.position(in.position() + 1);
+            default -> throw new IOException("Unknown promotion field type " + type);
+        }
+    }
+
+    /**
+     * Writes a string as {@code [int length][UTF-8 bytes]}.
+     */
+    private static ByteBuffer writeString(ByteBuffer out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        return ensure(out, 4 + utf8.length).putInt(utf8.length).put(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * Returns the buffer, or a copy twice as large, so that {@code bytes} more fit.
+     */
+    private static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        out.flip();
+        return larger.put(out);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Promotion> readLegacy(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return new ArrayList<>((List<Promotion>) in.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable legacy promotions file", e);
+        }
+    }
+}
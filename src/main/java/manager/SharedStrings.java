@@ -0,0 +1,169 @@
+package manager;
+
+import model.StringDictionary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persisted dictionary of the menu choices (sizes, crusts, sauces, cheeses, toppings and delivery
+ * options) that repeat across stored orders and favorites (Singleton Pattern).
+ * <p>
+ * The JSON adapters write a dictionary id (a JSON number) instead of the text, and on read map
+ * ids, and text the dictionary already holds, to the dictionary's canonical instance, so a loaded
+ * history holds one copy of each repeated string. Only menu choices are ever added: free text such
+ * as pizza names and addresses stays text, so the dictionary does not grow with the history. The dictionary is an append-only file of {@code writeUTF} entries
+ * whose position is the id; it is written by the {@link PersistenceWriter}, and an id is only
+ * handed out for JSON once its entry is on disk, so a record never refers to a string that a crash
+ * could lose. Keep {@value #FILE} together with the order and favorites files: records written
+ * with ids cannot be read without it.
+ */
+public class SharedStrings {
+
+    static final String FILE = "strings.dict";
+    private static SharedStrings instance;
+
+    private final Path file;
+    private final StringDictionary dictionary = new StringDictionary();
+    private int durable;          // Entries below this id are on disk
+    private boolean writeFailed;  // Stop handing out new ids if an append was lost
+
+    private SharedStrings(Path file) {
+        this.file = file;
+        try {
+            load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            writeFailed = true; // Appending after an unreadable file would shift every later id
+        }
+    }
+
+    /**
+     * Provides the Singleton instance, loading the dictionary file on first use.
+     */
+    public static synchronized SharedStrings getInstance() {
+        if (instance == null) {
+            instance = new SharedStrings(Paths.get(FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the canonical instance of a string, adding it to the dictionary if it is new.
+     */
+    public synchronized String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        int size = dictionary.size();
+        String canonical = dictionary.canonical(value);
+        if (dictionary.size() > size) {
+            persist(value, size);
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the dictionary's instance of a string if it holds one, or the string itself. Never
+     * adds to the dictionary.
+     */
+    public synchronized String shared(String value) {
+        int id = dictionary.find(value);
+        return id >= 0 ? dictionary.valueOf(id) : value;
+    }
+
+    /**
+     * Returns the id to write for a string, adding it to the dictionary if it is new.
+     *
+     * @return Id of the string, or -1 if it must be written as text because its entry is not yet
+     *         on disk.
+     */
+    public synchronized int durableId(String value) {
+        if (value == null) {
+            return -1;
+        }
+        canonical(value);
+        int id = dictionary.idOf(value);
+        return id < durable ? id : -1;
+    }
+
+    /**
+     * Returns the string for an id.
+     *
+     * @throws IOException If the id is not in the dictionary.
+     */
+    public synchronized String valueOf(int id) throws IOException {
+        String value = dictionary.valueOf(id);
+        if (value == null) {
+            throw new IOException("Unknown shared string id " + id + "; is " + FILE + " missing?");
+        }
+        return value;
+    }
+
+    /**
+     * Number of strings in the dictionary.
+     */
+    public synchronized int size() {
+        return dictionary.size();
+    }
+
+    private void persist(String value, int id) {
+        if (writeFailed) {
+            return;
+        }
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(entry)) {
+            out.writeUTF(value);
+        } catch (IOException e) {
+            e.printStackTrace(); // Longer than 64 KB of UTF-8; stays a text-only string
+            writeFailed = true;
+            return;
+        }
+        PersistenceWriter.getInstance().append(file, entry.toByteArray()).whenComplete((ignored, error) -> {
+            synchronized (this) {
+                if (error != null) {
+                    error.printStackTrace();
+                    writeFailed = true;
+                } else if (!writeFailed) {
+                    durable = Math.max(durable, id + 1); // Appends complete in queue order
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads every complete entry and cuts off a partial last entry left by a crash.
+     */
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] content = Files.readAllBytes(file);
+        ByteArrayInputStream bytes = new ByteArrayInputStream(content);
+        DataInputStream in = new DataInputStream(bytes);
+        int valid = 0;
+        while (bytes.available() > 0) {
+            try {
+                dictionary.idOf(in.readUTF()); // Entries are never repeated, so ids match positions
+            } catch (EOFException e) {
+                break;
+            }
+            valid = content.length - bytes.available();
+        }
+        if (valid < content.length) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        durable = dictionary.size();
+    }
+}
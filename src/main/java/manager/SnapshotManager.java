@@ -0,0 +1,331 @@
+package manager;
+
+import com.google.gson.reflect.TypeToken;
+import model.Order;
+import model.Pizza;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic compact binary snapshots of orders and favorites for fast restarts.
+ * <p>
+ * Each snapshot is tagged with the log position it covers. The orders snapshot holds one block per
+ * partition, tagged with the end of that partition's journal, so a restore decodes the snapshot and
+ * replays only the records appended after it. Blocks of partitions that were dropped since are
+ * skipped without decoding. The favorites base file (see {@link FavoritesLog}) is stored as a
+ * whole file, so its snapshot is tagged with the size and modification time of that file and is
+ * used only while the file is unchanged; otherwise the caller falls back to a full load.
+ * Promotions need no snapshot: their own file is compact binary ({@link PromotionFile}).
+ * Signed-in users' favorites ({@link UserFavoritesStore}) have none either: a restart does not
+ * load them, and each user's small files are read only when that user opens their favorites.
+ * <p>
+ * Snapshot age and the duration of the last restore are exposed per snapshot name, and printed
+ * at startup and after every restore.
+ */
+public class SnapshotManager {
+
+    public static final String ORDERS = "orders";
+    public static final String FAVORITES = "favorites";
+
+    private static final String SNAPSHOT_DIR = "snapshots";
+    private static final String FAVORITES_FILE = "favorites.json";
+    private static final Type FAVORITES_TYPE = new TypeToken<List<Pizza>>() {}.getType();
+    private static final int MAGIC = 0x505A534E; // "PZSN"
+    private static final int VERSION = 1;
+
+    private static final Map<String, Long> restoreMillis = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Starts writing snapshots in the background at a fixed interval and once more at shutdown.
+     *
+     * @param interval Time between snapshots.
+     */
+    public static synchronized void startPeriodicSnapshots(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(SnapshotManager::writeSnapshots,
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(SnapshotManager::writeSnapshots, "snapshot-shutdown"));
+        System.out.println("Snapshots: " + ORDERS + " " + describeAge(ORDERS) + ", "
+                + FAVORITES + " " + describeAge(FAVORITES));
+    }
+
+    /**
+     * Writes fresh snapshots of orders and favorites. Favorites are skipped when their existing
+     * snapshot is still current.
+     */
+    public static synchronized void writeSnapshots() {
+        try {
+            writeOrdersSnapshot(StorageManager.getOrderStore());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        try {
+            PersistenceWriter.getInstance().flush();
+            Path source = Paths.get(FAVORITES_FILE);
+            long[] tag = fileTag(source);
+            if (tag != null && !isCurrent(FAVORITES, tag)) {
+                // The snapshot covers the base file only; the favorites log is applied on top of it
+                List<Pizza> favorites = StorageManager.loadDataFromFile(FAVORITES_FILE, FAVORITES_TYPE);
+                writeFileSnapshot(FAVORITES, tag, favorites != null ? favorites : new ArrayList<>(),
+                        BinaryCodec::writePizza);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rebuilds the current orders from the latest orders snapshot plus the journal records
+     * appended after it, or from the full journal if there is no usable snapshot.
+     */
+    static List<Order> restoreOrders(PartitionedOrderStore store) throws IOException {
+        long start = System.nanoTime();
+        List<Order> orders = currentOrders(store);
+        restoreMillis.put(ORDERS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logRestore(ORDERS, orders.size());
+        return orders;
+    }
+
+    /**
+     * Loads favorites from their snapshot if favorites.json has not changed since it was taken.
+     *
+     * @return Favorites, or null if the caller must load favorites.json itself.
+     */
+    public static List<Pizza> restoreFavorites() {
+        List<Pizza> favorites = restoreFileSnapshot(FAVORITES, Paths.get(FAVORITES_FILE), BinaryCodec::readPizza);
+        if (favorites != null) {
+            logRestore(FAVORITES, favorites.size());
+        }
+        return favorites;
+    }
+
+    /**
+     * Time since the named snapshot was written.
+     *
+     * @param name {@link #ORDERS} or {@link #FAVORITES}.
+     * @return Snapshot age, or null if there is no snapshot.
+     */
+    public static Duration getSnapshotAge(String name) {
+        try (DataInputStream in = openSnapshot(name)) {
+            return in != null ? Duration.ofMillis(System.currentTimeMillis() - in.readLong()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Duration of the last restore of the named state in milliseconds, or -1 if it has not been restored.
+     */
+    public static long getLastRestoreMillis(String name) {
+        return restoreMillis.getOrDefault(name, -1L);
+    }
+
+    private static void logRestore(String name, int count) {
+        System.out.println("Restored " + count + " " + name + " in " + getLastRestoreMillis(name)
+                + " ms from snapshot " + describeAge(name));
+    }
+
+    private static String describeAge(String name) {
+        Duration age = getSnapshotAge(name);
+        return age != null ? age.toSeconds() + " s old" : "(none)";
+    }
+
+    private static List<Order> currentOrders(PartitionedOrderStore store) throws IOException {
+        Map<String, Order> orders = new LinkedHashMap<>();
+        Map<String, OrderJournal.Position> positions = new LinkedHashMap<>();
+        try (DataInputStream in = openSnapshot(ORDERS)) {
+            if (in != null) {
+                in.readLong(); // Creation time
+                Map<String, OrderJournal.Position> current = store.positions();
+                int partitionCount = in.readInt();
+                for (int p = 0; p < partitionCount; p++) {
+                    String name = in.readUTF();
+                    OrderJournal.Position position = new OrderJournal.Position(in.readInt(), in.readLong());
+                    int blockLength = in.readInt();
+
+                    // A partition that was dropped, or dropped and recreated, must not come from the snapshot
+                    OrderJournal.Position now = current.get(name);
+                    if (now == null || isBefore(now, position)) {
+                        in.skipNBytes(blockLength);
+                        continue;
+                    }
+                    positions.put(name, position);
+                    int orderCount = in.readInt();
+                    for (int i = 0; i < orderCount; i++) {
+                        Order order = BinaryCodec.readOrder(in);
+                        orders.put(order.getOrderId(), order);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            orders.clear(); // Truncated snapshot: fall back to a full replay
+            positions.clear();
+        }
+        store.replayAfter(positions, order -> orders.put(order.getOrderId(), order));
+        return new ArrayList<>(orders.values());
+    }
+
+    private static void writeOrdersSnapshot(PartitionedOrderStore store) throws IOException {
+        Map<String, OrderJournal.Position> positions = store.positions();
+        // May include records past the positions; replaying them again on restore is harmless
+        Map<String, List<Order>> byPartition = new LinkedHashMap<>();
+        for (String name : positions.keySet()) {
+            byPartition.put(name, new ArrayList<>());
+        }
+        for (Order order : currentOrders(store)) {
+            List<Order> partition = byPartition.get(PartitionedOrderStore.partitionOf(order.getDate()));
+            if (partition != null) {
+                partition.add(order);
+            }
+        }
+
+        writeSnapshot(ORDERS, out -> {
+            out.writeInt(positions.size());
+            for (Map.Entry<String, OrderJournal.Position> entry : positions.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().segment);
+                out.writeLong(entry.getValue().offset);
+
+                ByteArrayOutputStream block = new ByteArrayOutputStream();
+                DataOutputStream blockOut = new DataOutputStream(block);
+                List<Order> orders = byPartition.get(entry.getKey());
+                blockOut.writeInt(orders.size());
+                for (Order order : orders) {
+                    BinaryCodec.writeOrder(blockOut, order);
+                }
+                out.writeInt(block.size());
+                block.writeTo(out);
+            }
+        });
+    }
+
+    private static <T> void writeFileSnapshot(String name, long[] tag, List<T> items, Encoder<T> encoder) throws IOException {
+        writeSnapshot(name, out -> {
+            out.writeLong(tag[0]);
+            out.writeLong(tag[1]);
+            out.writeInt(items.size());
+            for (T item : items) {
+                encoder.write(out, item);
+            }
+        });
+    }
+
+    private static <T> List<T> restoreFileSnapshot(String name, Path source, Decoder<T> decoder) {
+        long start = System.nanoTime();
+        long[] tag = fileTag(source);
+        if (tag == null) {
+            return null;
+        }
+        try (DataInputStream in = openSnapshot(name)) {
+            if (in == null) {
+                return null;
+            }
+            in.readLong(); // Creation time
+            if (in.readLong() != tag[0] || in.readLong() != tag[1]) {
+                return null; // Source file changed since the snapshot
+            }
+            int count = in.readInt();
+            List<T> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(decoder.read(in));
+            }
+            restoreMillis.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return items;
+        } catch (IOException | RuntimeException e) {
+            return null; // Unreadable snapshot: fall back to a full load
+        }
+    }
+
+    private static boolean isCurrent(String name, long[] tag) {
+        try (DataInputStream in = openSnapshot(name)) {
+            if (in == null) {
+                return false;
+            }
+            in.readLong(); // Creation time
+            return in.readLong() == tag[0] && in.readLong() == tag[1];
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it into place.
+     */
+    private static void writeSnapshot(String name, Body body) throws IOException {
+        Path dir = Paths.get(SNAPSHOT_DIR);
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(name + ".snap.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            body.write(out);
+        }
+        Files.move(temp, dir.resolve(name + ".snap"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot positioned at its creation time, or returns null if there is none.
+     */
+    private static DataInputStream openSnapshot(String name) throws IOException {
+        Path path = Paths.get(SNAPSHOT_DIR, name + ".snap");
+        if (!Files.exists(path)) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            in.close();
+            return null;
+        }
+        return in;
+    }
+
+    /**
+     * Returns {size, lastModified} of a file, or null if it does not exist.
+     */
+    private static long[] fileTag(Path path) {
+        try {
+            return new long[]{Files.size(path), Files.getLastModifiedTime(path).toMillis()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBefore(OrderJournal.Position a, OrderJournal.Position b) {
+        return a.segment < b.segment || (a.segment == b.segment && a.offset < b.offset);
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Encoder<T> {
+        void write(DataOutput out, T item) throws IOException;
+    }
+
+    private interface Decoder<T> {
+        T read(DataInput in) throws IOException;
+    }
+}
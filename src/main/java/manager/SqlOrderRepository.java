@@ -0,0 +1,236 @@
+package manager;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import model.Order;
+import model.Pizza;
+import model.Promotion;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link OrderRepository} backed by an embedded, file-based H2 database.
+ * <p>
+ * Each order is one row, updated in place with {@code MERGE}, so saving never rewrites other
+ * orders. The columns used for lookups (date, status, delivery option, promo code) are real
+ * columns with indexes; the pizza and applied promotion are stored as JSON using the model
+ * adapters. All statements are prepared, and {@link #saveAll(List)} sends one batch in one
+ * transaction.
+ */
+public class SqlOrderRepository implements OrderRepository {
+
+    private static final String COLUMNS = "order_id, order_date, total_price, status, delivery_option, "
+            + "delivery_address, feedback, rating, promo_code, pizza, applied_promotion";
+    private static final String MERGE_SQL = "MERGE INTO orders (" + COLUMNS + ") KEY (order_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000; // Rows sent to the database per round trip
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM orders";
+
+    private final String url;
+    private final Gson gson = new GsonBuilder() // Text only: rows must be readable without strings.dict
+            .registerTypeHierarchyAdapter(Pizza.class, new PizzaAdapter(false))
+            .registerTypeAdapter(Promotion.class, new PromotionAdapter())
+            .create();
+    private Connection connection;
+
+    /**
+     * @param url JDBC URL of the database, e.g. {@code jdbc:h2:file:./orders-db}.
+     */
+    public SqlOrderRepository(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public synchronized void save(Order order) {
+        try (PreparedStatement merge = connection().prepareStatement(MERGE_SQL)) {
+            bind(merge, order);
+            merge.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void saveAll(List<Order> orders) {
+        try {
+            Connection connection = connection();
+            connection.setAutoCommit(false);
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_SQL)) {
+                int batched = 0;
+                for (Order order : orders) {
+                    bind(merge, order);
+                    merge.addBatch();
+                    if (++batched % BATCH_SIZE == 0) {
+                        merge.executeBatch();
+                    }
+                }
+                merge.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized Order findById(String orderId) {
+        List<Order> orders = select(" WHERE order_id = ?", orderId);
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public synchronized List<Order> findAll() {
+        return select(" ORDER BY order_date, order_id");
+    }
+
+    @Override
+    public synchronized List<Order> findByDate(LocalDate from, LocalDate to) {
+        // ISO dates compare correctly as text, but only against other ISO dates: an open bound is left out
+        List<String> bounds = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+        if (from != null) {
+            where.append(" WHERE order_date >= ?");
+            bounds.add(from.toString());
+        }
+        if (to != null) {
+            where.append(from != null ? " AND" : " WHERE").append(" order_date <= ?");
+            bounds.add(to.toString());
+        }
+        return select(where + " ORDER BY order_date, order_id", bounds.toArray(new String[0]));
+    }
+
+    @Override
+    public synchronized List<Order> findByStatus(String status) {
+        return select(" WHERE status = ? ORDER BY order_date, order_id", status);
+    }
+
+    /**
+     * Returns the orders that used a promo code, matched ignoring case.
+     */
+    public synchronized List<Order> findByPromoCode(String promoCode) {
+        return select(" WHERE promo_code = ? ORDER BY order_date, order_id", promoCode.toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public synchronized int count() {
+        try (Statement statement = connection().createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM orders")) {
+            return result.next() ? result.getInt(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Closes the database connection; it is reopened on the next call.
+     */
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            connection = null;
+        }
+    }
+
+    private List<Order> select(String where, String... parameters) {
+        List<Order> orders = new ArrayList<>();
+        try (PreparedStatement query = connection().prepareStatement(SELECT_SQL + where)) {
+            for (int i = 0; i < parameters.length; i++) {
+                query.setString(i + 1, parameters[i]);
+            }
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    orders.add(readOrder(result));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return orders;
+    }
+
+    private void bind(PreparedStatement statement, Order order) throws SQLException {
+        Promotion promotion = order.getAppliedPromotion();
+        statement.setString(1, order.getOrderId());
+        statement.setString(2, order.getDate());
+        statement.setDouble(3, order.getTotalPrice());
+        statement.setString(4, order.getCurrentStatus());
+        statement.setString(5, order.getDeliveryOption());
+        statement.setString(6, order.getDeliveryAddress());
+        statement.setString(7, order.getFeedback());
+        statement.setInt(8, order.getRating());
+        if (promotion != null && promotion.getPromoCode() != null) {
+            statement.setString(9, promotion.getPromoCode().toUpperCase(Locale.ROOT));
+        } else {
+            statement.setNull(9, Types.VARCHAR);
+        }
+        statement.setString(10, order.getPizza() != null ? gson.toJson(order.getPizza(), Pizza.class) : null);
+        statement.setString(11, promotion != null ? gson.toJson(promotion, Promotion.class) : null);
+    }
+
+    private Order readOrder(ResultSet result) throws SQLException {
+        String pizzaJson = result.getString("pizza");
+        String promotionJson = result.getString("applied_promotion");
+        Order order = new Order(result.getString("order_id"), result.getString("order_date"),
+                result.getDouble("total_price"), pizzaJson != null ? gson.fromJson(pizzaJson, Pizza.class) : null,
+                result.getString("delivery_option"), result.getString("delivery_address"));
+        order.setState(OrderStateAdapter.fromStatus(result.getString("status")));
+        String feedback = result.getString("feedback");
+        order.setFeedback(feedback != null ? feedback : "");
+        int rating = result.getInt("rating");
+        if (rating >= 1 && rating <= 5) {
+            order.setRating(rating);
+        }
+        if (promotionJson != null) {
+            order.setAppliedPromotion(gson.fromJson(promotionJson, Promotion.class));
+        }
+        return order;
+    }
+
+    /**
+     * Opens the database on first use and creates the table and indexes if they are missing.
+     */
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = DriverManager.getConnection(url);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS orders ("
+                        + "order_id VARCHAR(64) PRIMARY KEY, "
+                        + "order_date VARCHAR(32), " // ISO-8601, so text order is date order
+                        + "total_price DOUBLE PRECISION NOT NULL, "
+                        + "status VARCHAR(32) NOT NULL, "
+                        + "delivery_option VARCHAR(32), "
+                        + "delivery_address VARCHAR(1000), "
+                        + "feedback VARCHAR(4000), "
+                        + "rating TINYINT NOT NULL, "
+                        + "promo_code VARCHAR(64), "
+                        + "pizza VARCHAR(4000), "
+                        + "applied_promotion VARCHAR(4000))");
+                statement.execute("CREATE INDEX IF NOT EXISTS orders_by_date ON orders (order_date)");
+                statement.execute("CREATE INDEX IF NOT EXISTS orders_by_status ON orders (status)");
+                statement.execute("CREATE INDEX IF NOT EXISTS orders_by_delivery ON orders (delivery_option)");
+                statement.execute("CREATE INDEX IF NOT EXISTS orders_by_promo ON orders (promo_code)");
+            }
+        }
+        return connection;
+    }
+}
@@ -1,29 +1,80 @@
 package manager;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import model.OrderState;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class StorageManager {
 
     private static final String ORDER_FILE = "orders.json";
+    private static final String ORDER_STORE_DIR = "orders";
+    private static final String ORDER_INDEX_FILE = "orders.idx";
+    private static final String ORDER_ARCHIVE_DIR = "archive";
+    private static final String BINARY_ORDER_FILE = "orders.bin";
     private static final String FAVORITES_FILE = "favorites.json";
-    private static final Gson gson = new Gson();
+    private static final String FAVORITES_LOG_FILE = "favorites.log";
+    private static final String USER_FAVORITES_DIR = "user-favorites";
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeHierarchyAdapter(OrderState.class, new OrderStateAdapter())
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(model.Order.class, new OrderAdapter())
+            .registerTypeHierarchyAdapter(model.Pizza.class, new PizzaAdapter()) // Includes decorators
+            .registerTypeAdapter(model.Promotion.class, new PromotionAdapter())
+            .registerTypeAdapter(model.Feedback.class, new FeedbackAdapter())
+            .create();
+    private static PartitionedOrderStore orderStore;
+    private static OrderIndex orderIndex;
+    private static OrderArchive orderArchive;
+    private static BinaryOrderStore binaryOrderStore;
+    private static OffHeapOrderCache orderCache;
+    private static FavoritesLog favoritesLog;
+    private static UserFavoritesStore userFavorites;
 
-    // Save orders to file
+    // Save data to file on the persistence writer thread
     public static <T> void saveDataToFile(List<T> data, String filePath) {
-        try (Writer writer = new FileWriter(filePath)) {
-            gson.toJson(data, writer);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        saveDataToFileAsync(data, filePath);
     }
 
-    // Load orders from file
+    /**
+     * Serializes the data on the calling thread and queues the file write on the
+     * {@link PersistenceWriter}, which merges writes that arrive close together.
+     *
+     * @return Future completed once the file is on disk.
+     */
+    public static <T> CompletableFuture<Void> saveDataToFileAsync(List<T> data, String filePath) {
+        byte[] json = gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+        return logFailure(PersistenceWriter.getInstance().replace(Paths.get(filePath), json));
+    }
+
+    // Load data from file
     public static <T> List<T> loadDataFromFile(String filePath, Type type) {
+        PersistenceWriter.getInstance().flush(); // Read our own queued writes
         try (Reader reader = new FileReader(filePath)) {
             return gson.fromJson(reader, type);
         } catch (IOException e) {
@@ -31,25 +82,452 @@ public class StorageManager {
         }
     }
 
-    // Save orders
+    /**
+     * Streams the elements of a JSON array file one at a time using Gson's {@link JsonReader}.
+     * The caller must close the stream; a missing file yields an empty stream.
+     *
+     * @param filePath    Path of a file holding a JSON array.
+     * @param elementType Type of each array element.
+     * @return Lazily decoded elements.
+     */
+    public static <T> Stream<T> streamDataFromFile(String filePath, Class<T> elementType) {
+        PersistenceWriter.getInstance().flush(); // Read our own queued writes
+        JsonReader reader;
+        try {
+            reader = new JsonReader(new BufferedReader(new FileReader(filePath)));
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.close();
+                return Stream.empty(); // Empty file or "null"
+            }
+            reader.beginArray();
+        } catch (IOException e) {
+            return Stream.empty(); // Return an empty stream if the file doesn't exist or there's an error
+        }
+
+        Iterator<T> iterator = new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return reader.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return gson.fromJson(reader, elementType);
+                } catch (JsonParseException e) {
+                    throw new UncheckedIOException(new IOException("Malformed element in " + filePath, e));
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Append orders to the order journal
     public static void saveOrders(List<model.Order> orders) {
-        saveDataToFile(orders, ORDER_FILE);
+        try {
+            getOrderIndex(); // Index the orders as they are appended
+            logFailure(getOrderStore().appendAll(orders));
+            BinaryOrderStore store = getBinaryOrderStore();
+            for (model.Order order : orders) {
+                putBinary(store, order);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
-    // Load orders
+    // Append a single placed or changed order to the order journal
+    public static void saveOrder(model.Order order) {
+        try {
+            getOrderIndex(); // Index the order as it is appended
+            logFailure(getOrderStore().append(order));
+            putBinary(getBinaryOrderStore(), order);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Load archived orders, then hot orders from the latest snapshot plus the journal records written after it
     public static List<model.Order> loadOrders() {
-        Type listType = new TypeToken<List<model.Order>>() {}.getType();
-        return loadDataFromFile(ORDER_FILE, listType);
+        try {
+            List<model.Order> hotOrders = SnapshotManager.restoreOrders(getOrderStore());
+            if (getOrderArchive().listSegments().isEmpty()) {
+                return hotOrders;
+            }
+            List<model.Order> orders;
+            try (Stream<model.Order> archived = getOrderArchive().stream(null, null, getOrderIndex())) {
+                orders = archived.collect(Collectors.toCollection(ArrayList::new));
+            }
+            Set<String> archivedIds = new HashSet<>();
+            for (model.Order order : orders) {
+                archivedIds.add(order.getOrderId());
+            }
+            for (model.Order order : hotOrders) {
+                if (!archivedIds.contains(order.getOrderId())) { // Left behind by an interrupted archive run
+                    orders.add(order);
+                }
+            }
+            return orders;
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Streams stored orders one at a time so callers can filter or stop early without holding the
+     * full history in memory. The caller must close the stream (e.g. with try-with-resources).
+     *
+     * @return Lazily decoded orders, each in its latest saved form.
+     */
+    public static Stream<model.Order> streamOrders() {
+        try {
+            return Stream.concat(streamArchivedOrders(null, null), getOrderStore().stream());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Streams the orders dated on or between two dates. Only the monthly partitions and archive
+     * segments overlapping the range are opened. The caller must close the stream.
+     *
+     * @param from First day to include.
+     * @param to   Last day to include.
+     * @return Lazily decoded orders within the range.
+     */
+    public static Stream<model.Order> streamOrders(LocalDate from, LocalDate to) {
+        try {
+            return Stream.concat(streamArchivedOrders(from, to), getOrderStore().query(from, to));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Loads the orders dated on or between two dates.
+     */
+    public static List<model.Order> loadOrders(LocalDate from, LocalDate to) {
+        try (Stream<model.Order> orders = streamOrders(from, to)) {
+            return orders.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Loads the orders dated on or between two dates in their compact, read-only form, for order
+     * history and reports over long periods. Orders are converted one at a time as they are
+     * streamed, so the full {@link model.Order} objects are never all held at once.
+     *
+     * @param from First day to include.
+     * @param to   Last day to include.
+     * @return Compact orders sharing one string dictionary.
+     */
+    public static List<model.ArchivedOrder> loadOrderHistory(LocalDate from, LocalDate to) {
+        model.StringDictionary dictionary = new model.StringDictionary();
+        try (Stream<model.Order> orders = streamOrders(from, to)) {
+            return orders.map(order -> model.ArchivedOrder.of(order, dictionary)).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the recent orders held in the off-heap cache, oldest first, for screens that browse
+     * history. Orders are decoded only as the list is read; the list does not change when orders
+     * are saved later. The cache size is capped by the {@code orders.cacheMegabytes} system
+     * property (default 64), so the oldest hot orders may be missing; use {@link #loadOrders()} for
+     * the complete history.
+     */
+    public static List<model.Order> loadRecentOrders() {
+        try {
+            return getOrderCache().orders();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Looks up a recent order in the off-heap cache.
+     *
+     * @return A copy of the order, or null if it is not among the cached orders.
+     */
+    public static model.Order findRecentOrder(String orderId) {
+        try {
+            return getOrderCache().get(orderId);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Exports the orders dated on or between two dates to a CSV file, streaming them from storage
+     * so memory use does not depend on the number of orders.
+     *
+     * @param from First day to include.
+     * @param to   Last day to include.
+     * @param file CSV file to create or replace.
+     * @return Number of orders exported, or -1 if the file could not be written.
+     */
+    public static long exportOrders(LocalDate from, LocalDate to, Path file) {
+        try (Stream<model.Order> orders = streamOrders(from, to)) {
+            return new OrderExporter().export(orders, file);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Loads today's orders; only the current month's partition is read.
+     */
+    public static List<model.Order> loadTodaysOrders() {
+        LocalDate today = LocalDate.now();
+        return loadOrders(today, today);
+    }
+
+    /**
+     * Deletes all order partitions for months before the given month.
+     *
+     * @param month First month to keep.
+     * @return Names of the dropped partitions.
+     */
+    public static List<String> dropOrdersBefore(YearMonth month) {
+        try {
+            return getOrderStore().dropPartitionsBefore(month);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Moves orders older than the given age out of the hot order store into compressed archive
+     * segments. Whole months are archived, so a month is moved once all of its days are older
+     * than the age. Archived orders are still returned by the load, stream and query methods.
+     *
+     * @param age Age after which orders are archived, e.g. {@code Period.ofYears(1)}.
+     * @return Number of orders archived, or -1 on error.
+     */
+    public static int archiveOrdersOlderThan(Period age) {
+        try {
+            YearMonth firstHotMonth = YearMonth.from(LocalDate.now().minus(age));
+            return getOrderArchive().archiveBefore(firstHotMonth, getOrderStore(), getOrderIndex());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Looks up an order by id in the binary order store without parsing other orders, or in the
+     * journal if the store cannot hold the order exactly (see {@link BinaryOrderStore}).
+     *
+     * @param orderId Order id.
+     * @return The order as the journal holds it, or null if not found.
+     */
+    public static model.Order findOrder(String orderId) {
+        if (BinaryOrderStore.canStore(orderId)) {
+            try {
+                model.Order order = getBinaryOrderStore().findOrder(orderId);
+                if (order != null) {
+                    return order;
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // Fall back to the journal
+            }
+        }
+        List<model.Order> orders = queryOrders().setOrderId(orderId).list();
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    /**
+     * Converts a JSON array of orders (such as the legacy orders.json) into the binary order store.
+     *
+     * @param ordersJsonPath Path of the JSON file.
+     * @return Number of orders converted, or -1 on error.
+     */
+    public static int convertOrdersToBinary(String ordersJsonPath) {
+        try {
+            return BinaryOrderStore.importJson(ordersJsonPath, getBinaryOrderStore());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Starts an indexed order lookup, e.g. all delivery orders of today or all orders that used a
+     * promo code. Only the matching orders are read.
+     *
+     * @return A new query builder.
+     */
+    public static OrderQuery queryOrders() {
+        return new OrderQuery();
+    }
+
+    /**
+     * Opens the favorites base file and change log on first use.
+     */
+    public static synchronized FavoritesLog getFavoritesLog() throws IOException {
+        if (favoritesLog == null) {
+            favoritesLog = new FavoritesLog(Paths.get(FAVORITES_FILE), Paths.get(FAVORITES_LOG_FILE), gson, true);
+        }
+        return favoritesLog;
+    }
+
+    /**
+     * Opens a user's own favorites, or the shared favorites when there is no user.
+     *
+     * @param userEmail Email of the signed-in user, or null for guests.
+     */
+    public static FavoritesLog getFavoritesLog(String userEmail) throws IOException {
+        if (userEmail == null || userEmail.isBlank()) {
+            return getFavoritesLog();
+        }
+        return getUserFavorites().forUser(userEmail);
+    }
+
+    /**
+     * Opens the per-user favorites on first use. The {@code favorites.cachedUsers} system property
+     * sets how many users' favorites stay loaded (default 100).
+     */
+    static synchronized UserFavoritesStore getUserFavorites() {
+        if (userFavorites == null) {
+            userFavorites = new UserFavoritesStore(Paths.get(USER_FAVORITES_DIR),
+                    Integer.getInteger("favorites.cachedUsers", 100), gson);
+        }
+        return userFavorites;
+    }
+
+    private static CompletableFuture<Void> logFailure(CompletableFuture<Void> write) {
+        return write.whenComplete((ignored, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Returns the Gson instance configured for the persisted model classes.
+     */
+    public static Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Opens the binary order store on first use, filling it from the journal if it is new.
+     */
+    private static synchronized BinaryOrderStore getBinaryOrderStore() throws IOException {
+        if (binaryOrderStore == null) {
+            boolean created = !Files.exists(Paths.get(BINARY_ORDER_FILE));
+            binaryOrderStore = new BinaryOrderStore(Paths.get(BINARY_ORDER_FILE));
+            if (created) {
+                for (model.Order order : getOrderStore().replay()) {
+                    putBinary(binaryOrderStore, order);
+                }
+            }
+        }
+        return binaryOrderStore;
+    }
+
+    /**
+     * Copies an order into the binary store, unless its id does not fit a record; such orders are
+     * only kept in the journal, which {@link #findOrder} falls back to.
+     */
+    private static void putBinary(BinaryOrderStore store, model.Order order) throws IOException {
+        if (BinaryOrderStore.canStore(order.getOrderId())) {
+            store.put(order);
+        }
     }
 
-    // Save favorites
-    public static void saveFavorites(List<model.Pizza> favorites) {
-        saveDataToFile(favorites, FAVORITES_FILE);
+    /**
+     * Opens the order journal, its index and the binary order store, replaying the journal where
+     * they need it. Called at startup off the EDT, so the replay does not hold up the first
+     * window. Saving an order needs the index and the binary store, so an order placed while this
+     * runs waits for it; {@code view.PaymentScreen} saves off the EDT for that reason.
+     */
+    public static void openOrderStorage() {
+        try {
+            getOrderIndex();
+            getBinaryOrderStore();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
-    // Load favorites
-    public static List<model.Pizza> loadFavorites() {
-        Type listType = new TypeToken<List<model.Pizza>>() {}.getType();
-        return loadDataFromFile(FAVORITES_FILE, listType);
+    /**
+     * Streams archived orders that have not been superseded by a later copy, or an empty stream if
+     * nothing has been archived yet.
+     */
+    private static Stream<model.Order> streamArchivedOrders(LocalDate from, LocalDate to) throws IOException {
+        OrderArchive archive = getOrderArchive();
+        if (archive.listSegments().isEmpty()) {
+            return Stream.empty();
+        }
+        return archive.stream(from, to, getOrderIndex());
+    }
+
+    static synchronized OrderArchive getOrderArchive() throws IOException {
+        if (orderArchive == null) {
+            orderArchive = new OrderArchive(Paths.get(ORDER_ARCHIVE_DIR));
+        }
+        return orderArchive;
+    }
+
+    /**
+     * Fills the off-heap order cache from the hot store on first use; from then on it follows every
+     * saved order.
+     */
+    static synchronized OffHeapOrderCache getOrderCache() throws IOException {
+        if (orderCache == null) {
+            long megabytes = Long.getLong("orders.cacheMegabytes", 64);
+            orderCache = OffHeapOrderCache.following(getOrderStore(), megabytes << 20);
+        }
+        return orderCache;
+    }
+
+    /**
+     * Opens the secondary order indexes on first use; from then on they follow every saved order.
+     */
+    static synchronized OrderIndex getOrderIndex() throws IOException {
+        if (orderIndex == null) {
+            orderIndex = new OrderIndex(Paths.get(ORDER_INDEX_FILE), getOrderStore(), getOrderArchive());
+        }
+        return orderIndex;
+    }
+
+    /**
+     * Opens the partitioned order store on first use, importing orders from the legacy
+     * orders.json file if the store is still empty.
+     */
+    static synchronized PartitionedOrderStore getOrderStore() throws IOException {
+        if (orderStore == null) {
+            orderStore = new PartitionedOrderStore(Paths.get(ORDER_STORE_DIR), gson);
+            Path legacyFile = Paths.get(ORDER_FILE);
+            if (Files.exists(legacyFile) && orderStore.isEmpty()) {
+                Type listType = new TypeToken<List<model.Order>>() {}.getType();
+                List<model.Order> legacyOrders = loadDataFromFile(ORDER_FILE, listType);
+                if (legacyOrders != null) {
+                    orderStore.appendAll(legacyOrders);
+                }
+            }
+        }
+        return orderStore;
     }
 }
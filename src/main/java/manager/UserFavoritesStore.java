@@ -0,0 +1,92 @@
+package manager;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Favorites kept separately for each user, with the favorites of recently active users cached.
+ * <p>
+ * Each user, identified by their email (ignoring case), has their own {@link FavoritesLog} in
+ * {@code <directory>/<email>.json} and {@code <directory>/<email>.log}, so opening one user's
+ * favorites reads only that user's files. Opened logs are kept in a least-recently-used cache of
+ * {@code capacity} users; the least recently used one is closed when another user's favorites
+ * are opened, so memory stays bounded however many customers use the system. A closed log loses
+ * nothing: every change is already queued for disk.
+ * <p>
+ * Callers should look a log up for each use rather than keep it: a log evicted while a caller
+ * still holds it rejects changes with {@link IllegalStateException}, and the next
+ * {@link #forUser} opens the user's files again (see {@code service.FavoriteManager}).
+ */
+public class UserFavoritesStore {
+
+    private final Path directory;
+    private final Gson gson;
+    private final Map<String, FavoritesLog> cache;
+
+    /**
+     * @param directory Directory holding the per-user files.
+     * @param capacity  Number of users whose favorites stay loaded.
+     */
+    public UserFavoritesStore(Path directory, int capacity, Gson gson) {
+        this.directory = directory;
+        this.gson = gson;
+        this.cache = new LinkedHashMap<String, FavoritesLog>(16, 0.75f, true) { // Access order
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FavoritesLog> eldest) {
+                if (size() > capacity) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a user's favorites, loading them on first use or after they were evicted.
+     *
+     * @param email Email of the user.
+     * @throws IOException If the user's files cannot be read.
+     */
+    public synchronized FavoritesLog forUser(String email) throws IOException {
+        String key = fileName(email);
+        if (key == null) {
+            throw new IOException("Invalid user email '" + email + "'");
+        }
+        FavoritesLog log = cache.get(key);
+        if (log == null) {
+            Files.createDirectories(directory);
+            log = new FavoritesLog(directory.resolve(key + ".json"), directory.resolve(key + ".log"), gson);
+            cache.put(key, log);
+        }
+        return log;
+    }
+
+    /**
+     * Number of users whose favorites are loaded.
+     */
+    public synchronized int getCachedUsers() {
+        return cache.size();
+    }
+
+    /**
+     * Maps an email to a file name that is safe on every file system.
+     *
+     * @return File name, or null if the email cannot name a file.
+     */
+    private static String fileName(String email) {
+        String name = URLEncoder.encode(email.trim().toLowerCase(Locale.ROOT), StandardCharsets.UTF_8);
+        if (name.isEmpty() || name.startsWith(".")) {
+            return null;
+        }
+        return name.replace("*", "%2A");
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timing wheel of the days on which promotions start or stop applying, with one slot per day.
+ * <p>
+ * A promotion turns on at the start of its start date and off at the start of the day after its
+ * end date. Each boundary goes into the slot for its day modulo {@link #SLOTS}; a boundary more
+ * than one turn of the wheel ahead stays in its slot, and is skipped on the turns before its day.
+ * Advancing a day looks at one slot, so the cost of a day does not grow with the number of
+ * promotions, only with the boundaries that fall in its slot.
+ */
+final class ActivationWheel {
+
+    static final int SLOTS = 128; // Power of two, so a day's slot is a mask
+
+    private final List<List<Boundary>> slots = new ArrayList<>(SLOTS);
+    private long currentDay; // Last epoch day advanced to; its boundaries have been handed out
+
+    /**
+     * @param today Epoch day the wheel starts on; boundaries on or before it are already past.
+     */
+    ActivationWheel(long today) {
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+        currentDay = today;
+    }
+
+    /**
+     * Schedules a promotion's start and end boundaries that are still ahead.
+     */
+    void schedule(Promotion promotion) {
+        if (promotion.getStartDate() != null) {
+            add(promotion, promotion.getStartDate().toEpochDay());
+        }
+        if (promotion.getEndDate() != null) {
+            add(promotion, promotion.getEndDate().toEpochDay() + 1);
+        }
+    }
+
+    /**
+     * Advances the wheel to a day.
+     *
+     * @param day Epoch day; days already advanced to are ignored.
+     * @return Promotions with a boundary between the previous day and {@code day}, in no
+     * particular order and possibly repeated.
+     */
+    List<Promotion> advanceTo(long day) {
+        List<Promotion> due = new ArrayList<>();
+        if (day <= currentDay) {
+            return due;
+        }
+        if (day - currentDay >= SLOTS) {
+            // A full turn or more, e.g. after the machine slept: every slot is due
+            for (List<Boundary> slot : slots) {
+                take(slot, day, due);
+            }
+        } else {
+            for (long d = currentDay + 1; d <= day; d++) {
+                take(slots.get(slot(d)), d, due);
+            }
+        }
+        currentDay = day;
+        return due;
+    }
+
+    /**
+     * Drops a promotion's boundaries that are still ahead, e.g. when it is removed.
+     */
+    void cancel(Promotion promotion) {
+        if (promotion.getStartDate() != null) {
+            remove(promotion, promotion.getStartDate().toEpochDay());
+        }
+        if (promotion.getEndDate() != null) {
+            remove(promotion, promotion.getEndDate().toEpochDay() + 1);
+        }
+    }
+
+    private void add(Promotion promotion, long day) {
+        if (day > currentDay) {
+            slots.get(slot(day)).add(new Boundary(promotion, day));
+        }
+    }
+
+    private void remove(Promotion promotion, long day) {
+        if (day > currentDay) {
+            slots.get(slot(day)).removeIf(boundary -> boundary.promotion == promotion);
+        }
+    }
+
+    /**
+     * Moves the slot's boundaries on or before {@code day} to {@code due}.
+     */
+    private void take(List<Boundary> slot, long day, List<Promotion> due) {
+        slot.removeIf(boundary -> {
+            if (boundary.day <= day) {
+                due.add(boundary.promotion);
+                return true;
+            }
+            return false; // A later turn of the wheel
+        });
+    }
+
+    private static int slot(long day) {
+        return (int) (day & (SLOTS - 1));
+    }
+
+    private static final class Boundary {
+        final Promotion promotion;
+        final long day;
+
+        Boundary(Promotion promotion, long day) {
+            this.promotion = promotion;
+            this.day = day;
+        }
+    }
+}
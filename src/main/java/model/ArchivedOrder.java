@@ -0,0 +1,245 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Compact, immutable copy of an order for history and reporting.
+ * <p>
+ * Where an {@link Order} holds a date string, a {@link Pizza} with its own topping list, state and
+ * observer objects and a dozen strings, an archived order holds primitives only: the date as an
+ * epoch day, prices in cents, menu choices as {@link MenuCatalog} ids, toppings as a bitmask and
+ * decorators as flags. Addresses, pizza names and promo codes are ids in a shared
+ * {@link StringDictionary}, and order ids of the usual {@code ORDER<millis>} form are kept as a
+ * number. Values that are not on the menu (and applied promotion details other than the code) are
+ * not kept; use {@link Order} where those matter.
+ */
+public final class ArchivedOrder {
+
+    private static final String ID_PREFIX = "ORDER";
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte EXTRA_CHEESE = 1;
+    private static final byte SPECIAL_PACKAGING = 2;
+
+    private final StringDictionary dictionary;
+    private final long orderNumber;      // Digits of an "ORDER<digits>" id
+    private final String otherOrderId;   // Any other id form, else null
+    private final long totalCents;
+    private final int epochDay;
+    private final int pizzaPriceCents;   // Price of the pizza before decorators
+    private final int toppingMask;
+    private final int pizzaNameId;
+    private final int addressId;
+    private final int promoCodeId;
+    private final String feedback;       // Null when there is no feedback
+    private final byte sizeId;
+    private final byte crustId;
+    private final byte sauceId;
+    private final byte cheeseId;
+    private final byte deliveryOptionId;
+    private final byte statusId;
+    private final byte rating;
+    private final byte decorators;
+
+    private ArchivedOrder(Order order, StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        String orderId = order.getOrderId();
+        long number = parseOrderNumber(orderId);
+        this.orderNumber = number;
+        this.otherOrderId = number < 0 ? orderId : null;
+        this.totalCents = Math.round(order.getTotalPrice() * 100);
+        this.epochDay = parseEpochDay(order.getDate());
+
+        Pizza pizza = order.getPizza();
+        byte decoratorFlags = 0;
+        while (pizza instanceof PizzaDecorator) {
+            decoratorFlags |= pizza instanceof ExtraCheeseDecorator ? EXTRA_CHEESE : SPECIAL_PACKAGING;
+            pizza = ((PizzaDecorator) pizza).getDecoratedPizza();
+        }
+        this.decorators = decoratorFlags;
+        this.pizzaPriceCents = pizza != null ? (int) Math.round(pizza.getPrice() * 100) : 0;
+        this.toppingMask = pizza != null ? MenuCatalog.toppingMask(pizza.getToppings()) : 0;
+        this.pizzaNameId = pizza != null ? dictionary.idOf(pizza.getName()) : -1;
+        this.sizeId = pizza != null ? MenuCatalog.idOf(MenuCatalog.SIZES, pizza.getSize()) : 0;
+        this.crustId = pizza != null ? MenuCatalog.idOf(MenuCatalog.CRUSTS, pizza.getCrust()) : 0;
+        this.sauceId = pizza != null ? MenuCatalog.idOf(MenuCatalog.SAUCES, pizza.getSauce()) : 0;
+        this.cheeseId = pizza != null ? MenuCatalog.idOf(MenuCatalog.CHEESES, pizza.getCheese()) : 0;
+
+        this.addressId = dictionary.idOf(order.getDeliveryAddress());
+        this.promoCodeId = order.getAppliedPromotion() != null
+                ? dictionary.idOf(order.getAppliedPromotion().getPromoCode()) : -1;
+        this.feedback = order.getFeedback() == null || order.getFeedback().isEmpty() ? null : order.getFeedback();
+        this.deliveryOptionId = MenuCatalog.idOf(MenuCatalog.DELIVERY_OPTIONS, order.getDeliveryOption());
+        this.statusId = MenuCatalog.idOf(MenuCatalog.ORDER_STATUSES, order.getCurrentStatus());
+        this.rating = (byte) order.getRating();
+    }
+
+    /**
+     * Creates a compact copy of an order.
+     *
+     * @param order      Order to copy.
+     * @param dictionary Dictionary shared by all archived orders that are kept together.
+     */
+    public static ArchivedOrder of(Order order, StringDictionary dictionary) {
+        return new ArchivedOrder(order, dictionary);
+    }
+
+    public String getOrderId() {
+        return otherOrderId != null ? otherOrderId : ID_PREFIX + orderNumber;
+    }
+
+    /**
+     * Returns the order date, or null if the order had no valid date.
+     */
+    public LocalDate getDate() {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public double getTotalPrice() {
+        return totalCents / 100.0;
+    }
+
+    public String getPizzaName() {
+        return dictionary.valueOf(pizzaNameId);
+    }
+
+    public String getSize() {
+        return MenuCatalog.valueOf(MenuCatalog.SIZES, sizeId);
+    }
+
+    public String getCrust() {
+        return MenuCatalog.valueOf(MenuCatalog.CRUSTS, crustId);
+    }
+
+    public String getSauce() {
+        return MenuCatalog.valueOf(MenuCatalog.SAUCES, sauceId);
+    }
+
+    public String getCheese() {
+        return MenuCatalog.valueOf(MenuCatalog.CHEESES, cheeseId);
+    }
+
+    public int getToppingMask() {
+        return toppingMask;
+    }
+
+    public List<String> getToppings() {
+        return MenuCatalog.toppings(toppingMask);
+    }
+
+    public boolean hasExtraCheese() {
+        return (decorators & EXTRA_CHEESE) != 0;
+    }
+
+    public boolean hasSpecialPackaging() {
+        return (decorators & SPECIAL_PACKAGING) != 0;
+    }
+
+    public String getDeliveryOption() {
+        return MenuCatalog.valueOf(MenuCatalog.DELIVERY_OPTIONS, deliveryOptionId);
+    }
+
+    public String getDeliveryAddress() {
+        return dictionary.valueOf(addressId);
+    }
+
+    public String getStatus() {
+        return MenuCatalog.valueOf(MenuCatalog.ORDER_STATUSES, statusId);
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public String getFeedback() {
+        return feedback != null ? feedback : "";
+    }
+
+    /**
+     * Returns the code of the applied promotion, or null if none was applied.
+     */
+    public String getPromoCode() {
+        return dictionary.valueOf(promoCodeId);
+    }
+
+    /**
+     * Rebuilds a full order, e.g. to show it in an order window. The applied promotion is not
+     * restored.
+     */
+    public Order toOrder() {
+        Pizza pizza = null;
+        if (pizzaNameId >= 0 || sizeId > 0) {
+            pizza = new Pizza.PizzaBuilder()
+                    .setName(getPizzaName())
+                    .setSize(getSize())
+                    .setCrust(getCrust())
+                    .setSauce(getSauce())
+                    .setCheese(getCheese())
+                    .setToppings(getToppings())
+                    .setPrice(pizzaPriceCents / 100.0)
+                    .build();
+            if (hasExtraCheese()) {
+                pizza = new ExtraCheeseDecorator(pizza);
+            }
+            if (hasSpecialPackaging()) {
+                pizza = new SpecialPackagingDecorator(pizza);
+            }
+        }
+        LocalDate date = getDate();
+        Order order = new Order(getOrderId(), date != null ? date.toString() : null, getTotalPrice(), pizza,
+                getDeliveryOption(), getDeliveryAddress());
+        order.setFeedback(getFeedback());
+        if (rating >= 1 && rating <= 5) {
+            order.setRating(rating);
+        }
+        switch (statusId) { // Walk the state machine forward to the stored status
+            case 4:
+                order.setState(new DeliveredState());
+                break;
+            case 3:
+                order.setState(new OutForDeliveryState());
+                break;
+            case 2:
+                order.setState(new InPreparationState());
+                break;
+            default:
+                break;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the number in an "ORDER&lt;digits&gt;" id, or -1 for any other form.
+     */
+    private static long parseOrderNumber(String orderId) {
+        if (orderId == null || !orderId.startsWith(ID_PREFIX) || orderId.length() == ID_PREFIX.length()
+                || orderId.length() > ID_PREFIX.length() + 18 || orderId.charAt(ID_PREFIX.length()) == '0') {
+            return -1; // Leading zeros would not survive the round trip
+        }
+        long number = 0;
+        for (int i = ID_PREFIX.length(); i < orderId.length(); i++) {
+            char c = orderId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static int parseEpochDay(String date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        try {
+            return (int) LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+}
@@ -11,12 +11,10 @@ public class CrustValidator implements ValidationHandler {
     }
 
     @Override
-    public boolean validate(Pizza pizza) {
+    public String check(Pizza pizza) {
         if (pizza.getCrust() == null || pizza.getCrust().isEmpty()) {
-            System.out.println("Validation failed: Crust is not selected.");
-            return false;
+            return "Crust is not selected.";
         }
-        System.out.println("Crust validation passed.");
-        return nextHandler == null || nextHandler.validate(pizza);
+        return nextHandler == null ? null : nextHandler.check(pizza);
     }
 }
@@ -0,0 +1,46 @@
+package model;
+
+import manager.StorageManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Command for exporting the orders of a day, or of a range of days, to a CSV file, e.g. for
+ * accounting.
+ */
+public class ExportOrdersCommand implements command {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Path file;
+    private long exported = -1;
+
+    public ExportOrdersCommand(LocalDate day, Path file) {
+        this(day, day, file);
+    }
+
+    public ExportOrdersCommand(LocalDate from, LocalDate to, Path file) {
+        this.from = from;
+        this.to = to;
+        this.file = file;
+    }
+
+    @Override
+    public void execute() {
+        long start = System.nanoTime();
+        exported = StorageManager.exportOrders(from, to, file);
+        if (exported >= 0) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            String days = from.equals(to) ? from.toString() : from + " to " + to;
+            System.out.printf("Exported %d orders for %s to %s in %.2f s%n", exported, days, file, seconds);
+        }
+    }
+
+    /**
+     * Returns the number of orders exported, or -1 if the export has not run or failed.
+     */
+    public long getExported() {
+        return exported;
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+import manager.OrderImporter;
+import manager.OrderRepositoryFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command for bulk importing orders from a JSON-lines or CSV file into the configured order
+ * repository.
+ */
+public class ImportOrdersCommand implements command {
+
+    private static final int PRINTED_ERRORS = 20;
+
+    private final Path file;
+    private OrderImporter.Report report;
+
+    public ImportOrdersCommand(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void execute() {
+        try {
+            report = new OrderImporter(OrderRepositoryFactory.getRepository()).importFile(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println(file + ": " + report);
+        for (int i = 0; i < Math.min(PRINTED_ERRORS, report.getErrors().size()); i++) {
+            System.out.println("  " + report.getErrors().get(i));
+        }
+        if (report.getErrorCount() > PRINTED_ERRORS) {
+            System.out.println("  ... and " + (report.getErrorCount() - PRINTED_ERRORS) + " more rejected rows");
+        }
+    }
+
+    /**
+     * Returns the outcome of the import, or null if it has not run or the file could not be read.
+     */
+    public OrderImporter.Report getReport() {
+        return report;
+    }
+}
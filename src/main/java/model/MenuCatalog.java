@@ -0,0 +1,89 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed choices offered when ordering a pizza, with compact ids for storage.
+ * <p>
+ * Ids are 1-based positions in the arrays below; 0 means "none or not on the menu". New choices
+ * must only ever be appended so that stored ids keep their meaning.
+ */
+public final class MenuCatalog {
+
+    public static final String[] SIZES = {"Small - $10", "Medium - $15", "Large - $20"};
+    public static final String[] CRUSTS = {"Thin", "Thick", "Stuffed"};
+    public static final String[] SAUCES = {"Tomato", "Barbecue", "Garlic"};
+    public static final String[] CHEESES = {"Mozzarella", "Cheddar", "Vegan"};
+    public static final String[] TOPPINGS = {"Pepperoni", "Mushrooms", "Olives", "Onions", "Bacon", "Pineapple"};
+    public static final String[] DELIVERY_OPTIONS = {"Pickup", "Delivery"};
+    public static final String[] ORDER_STATUSES = {"Order Placed", "In Preparation", "Out for Delivery", "Delivered"};
+
+    private MenuCatalog() {
+    }
+
+    /**
+     * Looks up the id of a choice, ignoring case. Sizes also match by their short name
+     * (e.g. "Large" matches "Large - $20").
+     *
+     * @param choices One of the arrays above.
+     * @param value   Choice to look up.
+     * @return 1-based id, or 0 if the value is null or not listed.
+     */
+    public static byte idOf(String[] choices, String value) {
+        if (value == null) {
+            return 0;
+        }
+        for (int i = 0; i < choices.length; i++) {
+            if (choices[i].equalsIgnoreCase(value) || shortName(choices[i]).equalsIgnoreCase(value)) {
+                return (byte) (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the choice for an id, or null for 0 and unknown ids.
+     */
+    public static String valueOf(String[] choices, int id) {
+        return id >= 1 && id <= choices.length ? choices[id - 1] : null;
+    }
+
+    /**
+     * Returns a choice without its price suffix (e.g. "Large" for "Large - $20").
+     */
+    public static String shortName(String choice) {
+        int suffix = choice.indexOf(" - ");
+        return suffix >= 0 ? choice.substring(0, suffix) : choice;
+    }
+
+    /**
+     * Encodes a topping list as a bitmask; bit {@code i} stands for {@code TOPPINGS[i]}.
+     * Toppings that are not on the menu are ignored.
+     */
+    public static int toppingMask(List<String> toppings) {
+        int mask = 0;
+        if (toppings != null) {
+            for (String topping : toppings) {
+                int id = idOf(TOPPINGS, topping);
+                if (id > 0) {
+                    mask |= 1 << (id - 1);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Decodes a topping bitmask back into topping names in menu order.
+     */
+    public static List<String> toppings(int mask) {
+        List<String> toppings = new ArrayList<>(Integer.bitCount(mask));
+        for (int i = 0; i < TOPPINGS.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                toppings.add(TOPPINGS[i]);
+            }
+        }
+        return toppings;
+    }
+}
@@ -13,7 +13,7 @@ public class Order {
     private String deliveryAddress;
     private String feedback;                 // User feedback
     private int rating;                      // User rating (1 to 5)
-    private List<OrderObserver> observers;   // Observer list for notifications
+    private transient List<OrderObserver> observers; // Observer list for notifications (not persisted)
     private Promotion appliedPromotion;      // Applied promotion
 
     // Constructor
@@ -54,7 +54,7 @@ public class Order {
     // Apply Promotion Method
     public boolean applyPromotion(String promoCode) {
         PromotionManager promotionManager = PromotionManager.getInstance();
-        Promotion promotion = promotionManager.validatePromoCode(promoCode, getPromoCondition());
+        Promotion promotion = promotionManager.validatePromoCode(promoCode, this);
         if (promotion != null) {
             this.appliedPromotion = promotion;
             applyPromotion(promotion.getDiscountAmount());
@@ -93,29 +93,29 @@ public class Order {
 
     // Observer Management
     public void addObserver(OrderObserver observer) {
+        if (observers == null) {
+            observers = new ArrayList<>(); // Orders loaded from storage start without observers
+        }
         if (!observers.contains(observer)) {
             observers.add(observer);
         }
     }
 
     public void removeObserver(OrderObserver observer) {
-        observers.remove(observer);
+        if (observers != null) {
+            observers.remove(observer);
+        }
     }
 
     private void notifyObservers() {
+        if (observers == null) {
+            return;
+        }
         for (OrderObserver observer : observers) {
             observer.update(this);
         }
     }
 
-    // Promotion Condition Helper
-    private String getPromoCondition() {
-        if (pizza != null && pizza.getToppings() != null && !pizza.getToppings().isEmpty()) {
-            return "TOPPING:" + pizza.getToppings();
-        }
-        return "ORDER";
-    }
-
     // Utility method to simulate time-based updates for tracking
     public void simulateOrderProgress() {
         nextState();
@@ -155,6 +155,10 @@ public class Order {
         return appliedPromotion;
     }
 
+    public void setAppliedPromotion(Promotion appliedPromotion) {
+        this.appliedPromotion = appliedPromotion;
+    }
+
     @Override
     public String toString() {
         return "Order ID: " + orderId +
@@ -20,6 +20,13 @@ public abstract class PizzaDecorator extends Pizza {
         this.pizza = pizza;
     }
 
+    /**
+     * Returns the pizza this decorator wraps.
+     */
+    public Pizza getDecoratedPizza() {
+        return pizza;
+    }
+
     @Override
     public abstract String getName();
 
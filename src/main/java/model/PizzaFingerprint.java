@@ -0,0 +1,118 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Canonical identity of a pizza configuration, usable as a hash key.
+ * <p>
+ * Two pizzas have equal fingerprints when they have the same size, crust, sauce, cheese, set of
+ * toppings and decorators, whatever their names and prices. Values are compared trimmed and
+ * ignoring case, toppings ignoring order and repeats, and decorators ignoring the order they were
+ * applied in. Fingerprints are immutable and compute their hash once, so they are cheap map keys.
+ */
+public final class PizzaFingerprint {
+
+    private final String size;
+    private final String crust;
+    private final String sauce;
+    private final String cheese;
+    private final List<String> toppings;   // Sorted, without repeats
+    private final List<String> decorators; // Sorted decorator class names
+    private final int hash;
+
+    private PizzaFingerprint(String size, String crust, String sauce, String cheese, List<String> toppings,
+                             List<String> decorators) {
+        this.size = size;
+        this.crust = crust;
+        this.sauce = sauce;
+        this.cheese = cheese;
+        this.toppings = toppings;
+        this.decorators = decorators;
+        this.hash = Objects.hash(size, crust, sauce, cheese, toppings, decorators);
+    }
+
+    /**
+     * Returns the fingerprint of a pizza, looking through its decorators.
+     */
+    public static PizzaFingerprint of(Pizza pizza) {
+        List<String> decorators = new ArrayList<>();
+        while (pizza instanceof PizzaDecorator) {
+            decorators.add(pizza.getClass().getSimpleName());
+            pizza = ((PizzaDecorator) pizza).getDecoratedPizza();
+        }
+        Collections.sort(decorators);
+
+        TreeSet<String> toppings = new TreeSet<>();
+        if (pizza.getToppings() != null) {
+            for (String topping : pizza.getToppings()) {
+                String value = normalize(topping);
+                if (!value.isEmpty()) {
+                    toppings.add(value);
+                }
+            }
+        }
+        return new PizzaFingerprint(normalize(pizza.getSize()), normalize(pizza.getCrust()),
+                normalize(pizza.getSauce()), normalize(pizza.getCheese()),
+                Collections.unmodifiableList(new ArrayList<>(toppings)), Collections.unmodifiableList(decorators));
+    }
+
+    public String getSize() {
+        return size;
+    }
+
+    public String getCrust() {
+        return crust;
+    }
+
+    public String getSauce() {
+        return sauce;
+    }
+
+    public String getCheese() {
+        return cheese;
+    }
+
+    public List<String> getToppings() {
+        return toppings;
+    }
+
+    public List<String> getDecorators() {
+        return decorators;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PizzaFingerprint)) {
+            return false;
+        }
+        PizzaFingerprint that = (PizzaFingerprint) other;
+        return hash == that.hash && size.equals(that.size) && crust.equals(that.crust) && sauce.equals(that.sauce)
+                && cheese.equals(that.cheese) && toppings.equals(that.toppings) && decorators.equals(that.decorators);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Canonical text form, e.g. {@code large|thin|tomato|mozzarella|olives,pepperoni|ExtraCheeseDecorator}.
+     */
+    @Override
+    public String toString() {
+        return size + '|' + crust + '|' + sauce + '|' + cheese + '|' + String.join(",", toppings) + '|'
+                + String.join(",", decorators);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
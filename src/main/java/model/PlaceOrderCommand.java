@@ -1,5 +1,6 @@
 package model;
 
+import manager.OrderRepositoryFactory;
 import model.Order;
 
 public class PlaceOrderCommand implements command {
@@ -11,7 +12,7 @@ public class PlaceOrderCommand implements command {
 
     @Override
     public void execute() {
-        System.out.println("Order placed: " + order.toString());
-        // Logic to save the order in a database or system (mocked here)
+        OrderRepositoryFactory.getRepository().save(order); // Persist through the configured repository
+        System.out.println("Order placed: " + order.getOrderId());
     }
 }
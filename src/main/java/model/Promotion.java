@@ -16,6 +16,7 @@ public class Promotion implements Serializable { // Added Serializable interface
     private LocalDate startDate;   // Start date of the promotion
     private LocalDate endDate;     // End date of the promotion
     private String condition;      // Condition (e.g., "TOPPING:Olives", "SIZE:Large")
+    private transient PromotionCondition compiledCondition; // Compiled on first use
 
     /**
      * Constructor to initialize a Promotion object.
@@ -78,6 +79,19 @@ public class Promotion implements Serializable { // Added Serializable interface
 
     public void setCondition(String condition) {
         this.condition = condition;
+        this.compiledCondition = null;
+    }
+
+    /**
+     * Returns the condition compiled for matching orders, compiling it on first use.
+     */
+    public PromotionCondition getCompiledCondition() {
+        PromotionCondition compiled = compiledCondition;
+        if (compiled == null) {
+            compiled = PromotionCondition.compile(condition); // Immutable, so a race only compiles twice
+            compiledCondition = compiled;
+        }
+        return compiled;
     }
 
     public boolean isActive() {
@@ -92,9 +106,15 @@ public class Promotion implements Serializable { // Added Serializable interface
      * Check if the promotion is currently active based on dates and manual status.
      */
     public boolean isCurrentlyActive() {
-        LocalDate today = LocalDate.now();
-        return isActive && (startDate == null || !today.isBefore(startDate)) &&
-                (endDate == null || !today.isAfter(endDate));
+        return isActiveOn(LocalDate.now());
+    }
+
+    /**
+     * Check if the promotion is active on a given day, based on dates and manual status.
+     */
+    public boolean isActiveOn(LocalDate day) {
+        return isActive && (startDate == null || !day.isBefore(startDate)) &&
+                (endDate == null || !day.isAfter(endDate));
     }
 
     @Override
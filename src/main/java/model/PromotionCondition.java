@@ -0,0 +1,189 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A promotion condition compiled once from its text into bitmasks over {@link MenuCatalog} ids.
+ * <p>
+ * Conditions are terms joined with {@code AND} and {@code OR}, where {@code AND} binds tighter,
+ * for example {@code "TOPPING:Olives AND SIZE:Large OR MIN:40"}. Terms are:
+ * <ul>
+ *   <li>{@code ORDER}: any order</li>
+ *   <li>{@code TOPPING:name}: the pizza has that topping</li>
+ *   <li>{@code SIZE:name}, {@code CRUST:name}, {@code SAUCE:name}, {@code CHEESE:name}: the pizza
+ *       has that choice (sizes also by short name, e.g. "Large")</li>
+ *   <li>{@code MIN:amount}: the order total is at least that amount</li>
+ * </ul>
+ * Each {@code AND} group becomes one clause: the toppings it requires as one mask, the allowed
+ * sizes, crusts, sauces and cheeses as one mask each, and a minimum total. An order is described
+ * once by {@link Facts}, so matching a clause is a handful of bit operations and a comparison.
+ * A group with an unknown term, or with terms that exclude each other, can never match and is
+ * dropped.
+ */
+public final class PromotionCondition {
+
+    private static final Pattern OR = Pattern.compile("\\s+OR\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+    private static final int ANY = -1; // Every id allowed
+
+    private final String source;
+    private final Clause[] clauses; // Matches if any clause does
+
+    private PromotionCondition(String source, Clause[] clauses) {
+        this.source = source;
+        this.clauses = clauses;
+    }
+
+    /**
+     * Compiles a condition. A null or blank condition matches any order, as {@code ORDER} does.
+     */
+    public static PromotionCondition compile(String condition) {
+        if (condition == null || condition.isBlank()) {
+            return new PromotionCondition("ORDER", new Clause[]{new Clause()});
+        }
+        List<Clause> clauses = new ArrayList<>();
+        for (String group : OR.split(condition.trim())) {
+            Clause clause = new Clause();
+            boolean possible = true;
+            for (String term : AND.split(group.trim())) {
+                possible &= clause.and(term.trim());
+            }
+            if (possible && clause.isSatisfiable()) {
+                clauses.add(clause);
+            }
+        }
+        return new PromotionCondition(condition, clauses.toArray(new Clause[0]));
+    }
+
+    /**
+     * Tells whether an order meets the condition.
+     */
+    public boolean matches(Facts facts) {
+        for (Clause clause : clauses) {
+            if (clause.matches(facts)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matches(Order order) {
+        return matches(Facts.of(order));
+    }
+
+    /**
+     * False if no order can ever meet the condition, e.g. because of a misspelled topping.
+     */
+    public boolean isSatisfiable() {
+        return clauses.length > 0;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * What a condition can ask about an order, reduced to menu ids once per order.
+     */
+    public static final class Facts {
+        private final int toppings; // MenuCatalog.toppingMask
+        private final int size;     // 1 << size id, bit 0 when not on the menu
+        private final int crust;
+        private final int sauce;
+        private final int cheese;
+        private final double total;
+
+        private Facts(Pizza pizza, double total) {
+            this.toppings = pizza != null ? MenuCatalog.toppingMask(pizza.getToppings()) : 0;
+            this.size = 1 << (pizza != null ? MenuCatalog.idOf(MenuCatalog.SIZES, pizza.getSize()) : 0);
+            this.crust = 1 << (pizza != null ? MenuCatalog.idOf(MenuCatalog.CRUSTS, pizza.getCrust()) : 0);
+            this.sauce = 1 << (pizza != null ? MenuCatalog.idOf(MenuCatalog.SAUCES, pizza.getSauce()) : 0);
+            this.cheese = 1 << (pizza != null ? MenuCatalog.idOf(MenuCatalog.CHEESES, pizza.getCheese()) : 0);
+            this.total = total;
+        }
+
+        public static Facts of(Order order) {
+            return new Facts(order.getPizza(), order.getTotalPrice());
+        }
+
+        public static Facts of(Pizza pizza, double total) {
+            return new Facts(pizza, total);
+        }
+    }
+
+    /**
+     * Terms joined with AND.
+     */
+    private static final class Clause {
+        int toppings;       // All required
+        int sizes = ANY;    // Allowed ids as bits; bit 0 (not on the menu) is only in ANY
+        int crusts = ANY;
+        int sauces = ANY;
+        int cheeses = ANY;
+        double minTotal;
+
+        /**
+         * Adds a term.
+         *
+         * @return False if the term is not understood.
+         */
+        boolean and(String term) {
+            int colon = term.indexOf(':');
+            String key = (colon >= 0 ? term.substring(0, colon) : term).trim().toUpperCase(Locale.ROOT);
+            String value = colon >= 0 ? term.substring(colon + 1).trim() : "";
+            switch (key) {
+                case "ORDER" -> {
+                    return value.isEmpty();
+                }
+                case "TOPPING" -> {
+                    int id = MenuCatalog.idOf(MenuCatalog.TOPPINGS, value);
+                    toppings |= id > 0 ? 1 << (id - 1) : 0;
+                    return id > 0;
+                }
+                case "SIZE" -> sizes &= bit(MenuCatalog.SIZES, value);
+                case "CRUST" -> crusts &= bit(MenuCatalog.CRUSTS, value);
+                case "SAUCE" -> sauces &= bit(MenuCatalog.SAUCES, value);
+                case "CHEESE" -> cheeses &= bit(MenuCatalog.CHEESES, value);
+                case "MIN" -> {
+                    try {
+                        minTotal = Math.max(minTotal, Double.parseDouble(value));
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * False if two terms exclude each other, e.g. {@code SIZE:Small AND SIZE:Large}.
+         */
+        boolean isSatisfiable() {
+            return sizes != 0 && crusts != 0 && sauces != 0 && cheeses != 0;
+        }
+
+        boolean matches(Facts facts) {
+            return (facts.toppings & toppings) == toppings
+                    && (facts.size & sizes) != 0
+                    && (facts.crust & crusts) != 0
+                    && (facts.sauce & sauces) != 0
+                    && (facts.cheese & cheeses) != 0
+                    && facts.total >= minTotal;
+        }
+
+        /**
+         * The bit for a choice, or 0 (never matches) if it is not on the menu.
+         */
+        private static int bit(String[] choices, String value) {
+            int id = MenuCatalog.idOf(choices, value);
+            return id > 0 ? 1 << id : 0;
+        }
+    }
+}
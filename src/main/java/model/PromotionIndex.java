@@ -0,0 +1,79 @@
+package model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Promotions by promo code, ignoring case.
+ * <p>
+ * Codes are upper-cased once, when a promotion is added or looked up, so finding a promotion is a
+ * single hash lookup instead of a scan with {@code equalsIgnoreCase}. If several promotions share a
+ * code, the first one added is found, as a scan of the promotion list would.
+ */
+public class PromotionIndex {
+
+    private final Map<String, Promotion> byCode = new HashMap<>();
+
+    public PromotionIndex() {
+    }
+
+    public PromotionIndex(Collection<Promotion> promotions) {
+        for (Promotion promotion : promotions) {
+            add(promotion);
+        }
+    }
+
+    /**
+     * Copies another index without normalizing its codes again.
+     */
+    public PromotionIndex(PromotionIndex other) {
+        byCode.putAll(other.byCode);
+    }
+
+    /**
+     * Indexes a promotion unless another one already has its code.
+     *
+     * @return False if the code was already taken (or the promotion has none).
+     */
+    public boolean add(Promotion promotion) {
+        if (promotion.getPromoCode() == null) {
+            return false;
+        }
+        return byCode.putIfAbsent(key(promotion.getPromoCode()), promotion) == null;
+    }
+
+    /**
+     * Finds the promotion with a code, ignoring case.
+     *
+     * @return The promotion, or null if there is none.
+     */
+    public Promotion get(String promoCode) {
+        return promoCode != null ? byCode.get(key(promoCode)) : null;
+    }
+
+    /**
+     * Removes a promotion if it is the one indexed under its code.
+     */
+    public void remove(Promotion promotion) {
+        if (promotion.getPromoCode() != null) {
+            byCode.remove(key(promotion.getPromoCode()), promotion);
+        }
+    }
+
+    public void clear() {
+        byCode.clear();
+    }
+
+    public int size() {
+        return byCode.size();
+    }
+
+    /**
+     * Case-normalized form of a promo code, as used for lookups.
+     */
+    public static String key(String promoCode) {
+        return promoCode.toUpperCase(Locale.ROOT);
+    }
+}
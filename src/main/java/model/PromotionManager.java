@@ -1,28 +1,86 @@
 package model;
 
-import java.io.*;
+import manager.PersistenceWriter;
+import manager.PromotionFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Manages available promotions and validates promo codes using Singleton Pattern.
+ * <p>
+ * Promotions are looked up by code through a {@link PromotionIndex}, kept in step with the list by
+ * every change, and checked against a cached current date, so validating a code costs the same
+ * however many promotions there are.
+ * <p>
+ * Promotions are stored in the {@link PromotionFile} format. Promotions that were inactive or
+ * expired at startup are left undecoded ("dormant"): they can never validate, so they are decoded
+ * only when something asks for all promotions or for one of them by code.
+ * <p>
+ * Every change saves the file and notifies listeners. Bulk operations, and changes grouped with
+ * {@link #batch(Runnable)}, do both once for the whole group.
+ * <p>
+ * The promotions that apply today are kept as an immutable snapshot, republished after every
+ * change and whenever a promotion's start or end date is reached. Those dates are scheduled on an
+ * {@link ActivationWheel} that a daemon thread advances at local midnight, and listeners are told
+ * about each promotion that turned on or off. A new snapshot is the previous one with only the
+ * changed promotions and the ones whose date was reached checked again, so the date checks do not
+ * grow with the number of promotions. Reading the active promotions, and validating a code, is a
+ * read of the current snapshot without any date checks or locking.
  */
 public class PromotionManager {
     private static PromotionManager instance; // Singleton instance
     private final List<Promotion> promotions; // Centralized promotion list
+    private final PromotionIndex index;       // Promotions by upper-cased code
+    private final List<PromotionFile.DormantPromotion> dormant = new ArrayList<>(); // Not decoded yet
+    private LocalDate today;                  // Cached current date
+    private long todayEndsAt;                 // Epoch millis at which the cached date expires
     private final List<PromotionManagerListener> listeners; // Listeners to notify UI components
-    private static final String FILE_NAME = "promotions.dat"; // File for persistence
+    private final ActivationWheel wheel;      // Upcoming start and end dates
+    private volatile ActiveSet active = new ActiveSet(); // Promotions that apply today
+    private final List<Promotion> touched = new ArrayList<>(); // Added or changed since the last snapshot
+    private final Set<Promotion> removed = identitySet();      // Removed since the last snapshot
+    private final ScheduledExecutorService scheduler; // Advances the wheel at midnight
+    private int batchDepth;                   // Nesting of batch() calls in progress
+    private boolean batchChanged;             // Promotions changed during the current batch
+    private static final Path FILE = Paths.get("promotions.dat"); // File for persistence
 
     /**
      * Private Constructor: Initializes the promotion list with default active promotions.
      */
     private PromotionManager() {
-        listeners = new ArrayList<>();
-        promotions = loadPromotions(); // Load promotions from file
-        if (promotions.isEmpty()) {
+        listeners = new CopyOnWriteArrayList<>(); // Also notified from the scheduler thread
+        promotions = new ArrayList<>();
+        index = new PromotionIndex();
+        wheel = new ActivationWheel(today().toEpochDay());
+        boolean legacy = loadPromotions(); // Load promotions from file
+        if (promotions.isEmpty() && dormant.isEmpty()) {
             initializeDefaultPromotions(); // If no promotions found, initialize default ones
+        } else if (legacy) {
+            savePromotions(); // Rewrite a Java-serialized file in the current format
         }
+        publishActive();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "promotion-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleMidnight();
     }
 
     /**
@@ -39,11 +97,11 @@ public class PromotionManager {
      * Initializes a set of default promotions.
      */
     private void initializeDefaultPromotions() {
-        promotions.add(new Promotion("HOLIDAY10", "Holiday Special - $10 Off", 10.0, true,
+        insert(new Promotion("HOLIDAY10", "Holiday Special - $10 Off", 10.0, true,
                 LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31), "ORDER"));
-        promotions.add(new Promotion("SUMMER15", "Summer Deal - $15 Off", 15.0, true,
+        insert(new Promotion("SUMMER15", "Summer Deal - $15 Off", 15.0, true,
                 LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), "TOPPING:Pineapple"));
-        promotions.add(new Promotion("WELCOME5", "Welcome Offer - $5 Off", 5.0, true,
+        insert(new Promotion("WELCOME5", "Welcome Offer - $5 Off", 5.0, true,
                 null, null, "ORDER"));
         savePromotions(); // Save default promotions
     }
@@ -51,37 +109,56 @@ public class PromotionManager {
     /**
      * Fetches all active promotions based on their current state.
      *
-     * @return List of currently active promotions.
+     * @return Read-only snapshot of the promotions that apply today; it does not change, a later
+     * call returns a new one.
      */
     public List<Promotion> getActivePromotions() {
-        List<Promotion> activePromotions = new ArrayList<>();
-        for (Promotion promo : promotions) {
-            if (promo.isCurrentlyActive()) {
-                activePromotions.add(promo);
+        return active.promotions;
+    }
+
+    /**
+     * Fetches the active promotions whose condition an order meets.
+     *
+     * @param order Order to check.
+     * @return Promotions that can be applied to the order.
+     */
+    public List<Promotion> getApplicablePromotions(Order order) {
+        PromotionCondition.Facts facts = PromotionCondition.Facts.of(order); // Once for all promotions
+        List<Promotion> applicable = new ArrayList<>();
+        for (Promotion promo : active.promotions) {
+            if (promo.getCompiledCondition().matches(facts)) {
+                applicable.add(promo);
             }
         }
-        return activePromotions;
+        return applicable;
     }
 
     /**
      * Validates a promotion code.
      *
      * @param promoCode Promotion code.
-     * @param condition Current order condition (e.g., "ORDER" or "TOPPING").
+     * @param order     Order the promotion is for; its pizza and total are checked against the
+     *                  promotion's {@link PromotionCondition condition}.
      * @return Promotion object if valid, otherwise null.
      */
-    public Promotion validatePromoCode(String promoCode, String condition) {
-        for (Promotion promo : promotions) {
-            if (promo.isCurrentlyActive() && promo.getPromoCode().equalsIgnoreCase(promoCode)) {
-                // Check the condition (if applicable)
-                if (promo.getCondition().equalsIgnoreCase("ORDER") || promo.getCondition().equalsIgnoreCase(condition)) {
-                    return promo; // Return the valid promotion
-                }
-            }
+    public Promotion validatePromoCode(String promoCode, Order order) {
+        Promotion promo = active.byCode.get(promoCode); // Only promotions that apply today
+        if (promo != null && promo.getCompiledCondition().matches(order)) {
+            return promo; // Return the valid promotion
         }
         return null; // Return null if no valid promotion is found
     }
 
+    /**
+     * Finds a promotion by code, ignoring case, whether or not it is active.
+     *
+     * @param promoCode Promotion code.
+     * @return Promotion, or null if there is none with that code.
+     */
+    public synchronized Promotion getPromotion(String promoCode) {
+        return find(promoCode);
+    }
+
     /**
      * Adds a new promotion.
      *
@@ -91,13 +168,12 @@ public class PromotionManager {
      * @param isActive       Active status.
      * @param startDate      Start date of the promotion.
      * @param endDate        End date of the promotion.
-     * @param condition      Promotion condition (e.g., "TOPPING:Pineapple").
+     * @param condition      Promotion condition (e.g., "TOPPING:Pineapple"), see {@link PromotionCondition}.
      */
-    public void addPromotion(String promoCode, String promoName, double discountAmount, boolean isActive,
+    public synchronized void addPromotion(String promoCode, String promoName, double discountAmount, boolean isActive,
                              LocalDate startDate, LocalDate endDate, String condition) {
-        promotions.add(new Promotion(promoCode, promoName, discountAmount, isActive, startDate, endDate, condition));
-        savePromotions(); // Save promotions after adding a new one
-        notifyListeners(); // Notify all listeners about the update
+        insert(new Promotion(promoCode, promoName, discountAmount, isActive, startDate, endDate, condition));
+        changed(); // Save promotions and notify listeners about the update
     }
 
     /**
@@ -106,16 +182,15 @@ public class PromotionManager {
      * @param promoCode The promo code to deactivate.
      * @return True if successful, false otherwise.
      */
-    public boolean deactivatePromotion(String promoCode) {
-        for (Promotion promo : promotions) {
-            if (promo.getPromoCode().equalsIgnoreCase(promoCode)) {
-                promo.setActive(false); // Deactivate the promotion
-                savePromotions(); // Save promotions after deactivating
-                notifyListeners(); // Notify listeners about the update
-                return true;
-            }
+    public synchronized boolean deactivatePromotion(String promoCode) {
+        Promotion promo = find(promoCode);
+        if (promo == null) {
+            return false; // Return false if no promotion with the specified code is found
         }
-        return false; // Return false if no promotion with the specified code is found
+        promo.setActive(false); // Deactivate the promotion
+        touched.add(promo);
+        changed(); // Save promotions and notify listeners about the update
+        return true;
     }
 
     /**
@@ -124,48 +199,323 @@ public class PromotionManager {
      * @param promoCode The promo code to remove.
      * @return True if the promotion was removed, false otherwise.
      */
-    public boolean removePromotion(String promoCode) {
-        for (int i = 0; i < promotions.size(); i++) {
-            if (promotions.get(i).getPromoCode().equalsIgnoreCase(promoCode)) {
-                promotions.remove(i); // Remove the promotion
-                savePromotions(); // Save promotions after removal
-                notifyListeners(); // Notify listeners about the update
-                return true;
+    public synchronized boolean removePromotion(String promoCode) {
+        Promotion promo = find(promoCode);
+        if (promo == null) {
+            return false; // Return false if no promotion with the specified code is found
+        }
+        promotions.remove(promo); // Remove the promotion
+        forget(promo);
+        for (Promotion other : promotions) {
+            if (other.getPromoCode() != null && other.getPromoCode().equalsIgnoreCase(promoCode)) {
+                index.add(other); // A later promotion with the same code takes its place
+                break;
+            }
+        }
+        changed(); // Save promotions and notify listeners about the update
+        return true;
+    }
+
+    /**
+     * Adds many promotions, e.g. a seasonal campaign, with one save and one notification.
+     * Promotions whose code is already taken are skipped.
+     *
+     * @param newPromotions Promotions to add.
+     * @return Number of promotions added.
+     */
+    public synchronized int addPromotions(Collection<Promotion> newPromotions) {
+        wakeDormant(); // Their codes are taken too
+        int added = 0;
+        for (Promotion promo : newPromotions) {
+            if (promo.getPromoCode() != null && index.get(promo.getPromoCode()) == null) {
+                insert(promo);
+                added++;
+            }
+        }
+        if (added > 0) {
+            changed();
+        }
+        return added;
+    }
+
+    /**
+     * Deactivates every active promotion that matches a filter, with one save and one notification.
+     *
+     * @param filter Selects the promotions to deactivate.
+     * @return Number of promotions deactivated.
+     */
+    public synchronized int deactivatePromotions(Predicate<Promotion> filter) {
+        wakeDormant();
+        int deactivated = 0;
+        for (Promotion promo : promotions) {
+            if (promo.isActive() && filter.test(promo)) {
+                promo.setActive(false);
+                touched.add(promo);
+                deactivated++;
+            }
+        }
+        if (deactivated > 0) {
+            changed();
+        }
+        return deactivated;
+    }
+
+    /**
+     * Removes every promotion whose end date has passed, with one save and one notification.
+     * Dormant promotions are removed without being decoded.
+     *
+     * @return Number of promotions removed.
+     */
+    public synchronized int removeExpiredPromotions() {
+        LocalDate day = today();
+        int before = promotions.size() + dormant.size();
+        dormant.removeIf(record -> record.endsBefore(day));
+        List<Promotion> expired = new ArrayList<>();
+        for (Promotion promo : promotions) {
+            if (promo.getEndDate() != null && promo.getEndDate().isBefore(day)) {
+                expired.add(promo);
+            }
+        }
+        if (!expired.isEmpty()) {
+            promotions.removeAll(identitySet(expired));
+            for (Promotion promo : expired) {
+                forget(promo);
+            }
+            index.clear();
+            for (Promotion promo : promotions) {
+                index.add(promo);
+            }
+        }
+        int removed = before - promotions.size() - dormant.size();
+        if (removed > 0) {
+            changed();
+        }
+        return removed;
+    }
+
+    /**
+     * Runs several changes as one: promotions are saved, the active snapshot republished and
+     * listeners notified once, when the outermost batch ends, and only if something changed.
+     *
+     * @param changes Calls to this manager's methods.
+     */
+    public synchronized void batch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            if (--batchDepth == 0 && batchChanged) {
+                batchChanged = false;
+                savePromotions();
+                publishActive();
+                notifyListeners();
             }
         }
-        return false; // Return false if no promotion with the specified code is found
     }
 
     /**
      * Fetches all promotions for administrative purposes.
      *
-     * @return List of all promotions.
+     * @return Read-only list of all promotions; change them through this manager.
+     */
+    public synchronized List<Promotion> getAllPromotions() {
+        wakeDormant();
+        return Collections.unmodifiableList(promotions);
+    }
+
+    /**
+     * Finds a promotion by code, decoding the dormant promotions if it is not among the others.
+     */
+    private Promotion find(String promoCode) {
+        Promotion promo = index.get(promoCode);
+        if (promo == null && !dormant.isEmpty()) {
+            wakeDormant();
+            promo = index.get(promoCode);
+        }
+        return promo;
+    }
+
+    /**
+     * Decodes the dormant promotions into the list and index.
+     */
+    private void wakeDormant() {
+        for (PromotionFile.DormantPromotion record : dormant) {
+            try {
+                insert(record.decode());
+            } catch (IOException e) {
+                e.printStackTrace(); // Skip the malformed record
+            }
+        }
+        dormant.clear();
+    }
+
+    /**
+     * Saves promotions, republishes the active snapshot and notifies listeners, or leaves that to
+     * the end of the current batch.
+     */
+    private void changed() {
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            savePromotions();
+            publishActive();
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Adds a promotion to the list and the index, and schedules its start and end dates.
+     */
+    private void insert(Promotion promotion) {
+        promotions.add(promotion);
+        index.add(promotion);
+        wheel.schedule(promotion);
+        removed.remove(promotion);
+        touched.add(promotion);
+    }
+
+    /**
+     * Takes a promotion that was removed from the list out of the index and the wheel.
+     */
+    private void forget(Promotion promotion) {
+        index.remove(promotion);
+        wheel.cancel(promotion);
+        removed.add(promotion);
+        touched.add(promotion);
+    }
+
+    /**
+     * Advances the wheel to today and publishes a new snapshot of the promotions that apply today:
+     * the previous snapshot with the promotions changed since, and the ones whose start or end
+     * date was reached, checked again. Listeners are told about the promotions that turned on or
+     * off because a date was reached; other changes are reported by
+     * {@link PromotionManagerListener#onPromotionsUpdated()}.
+     *
+     * @return True if a promotion turned on or off.
+     */
+    private boolean publishActive() {
+        LocalDate day = today();
+        List<Promotion> due = wheel.advanceTo(day.toEpochDay());
+        ActiveSet before = active;
+        List<Promotion> turnedOn = new ArrayList<>();
+        Set<Promotion> turnedOff = identitySet();
+        Set<Promotion> seen = identitySet();
+        for (List<Promotion> changes : List.of(touched, due)) {
+            for (Promotion promo : changes) {
+                if (seen.add(promo) && before.contains(promo) != applies(promo, day)) {
+                    if (before.contains(promo)) {
+                        turnedOff.add(promo);
+                    } else {
+                        turnedOn.add(promo);
+                    }
+                }
+            }
+        }
+        ActiveSet after = turnedOn.isEmpty() && turnedOff.isEmpty() ? before : before.with(turnedOn, turnedOff);
+        active = after;
+
+        seen.clear();
+        boolean crossed = false;
+        for (Promotion promo : due) {
+            boolean nowActive = after.contains(promo);
+            // Removed promotions and ones already switched by hand are left out
+            if (seen.add(promo) && !removed.contains(promo) && before.contains(promo) != nowActive) {
+                for (PromotionManagerListener listener : listeners) {
+                    listener.onPromotionActivationChanged(promo, nowActive);
+                }
+                crossed = true;
+            }
+        }
+        touched.clear();
+        removed.clear();
+        return crossed;
+    }
+
+    /**
+     * Tells whether a promotion belongs in the snapshot for a day.
+     */
+    private boolean applies(Promotion promo, LocalDate day) {
+        return !removed.contains(promo) && promo.isActiveOn(day);
+    }
+
+    private static Set<Promotion> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static Set<Promotion> identitySet(Collection<Promotion> promotions) {
+        Set<Promotion> set = Collections.newSetFromMap(new IdentityHashMap<>(promotions.size() * 2));
+        set.addAll(promotions);
+        return set;
+    }
+
+    /**
+     * Runs {@link #midnight()} when the cached date next expires.
      */
-    public List<Promotion> getAllPromotions() {
-        return promotions;
+    private void scheduleMidnight() {
+        long delay = Math.max(1, todayEndsAt - System.currentTimeMillis() + 1);
+        scheduler.schedule(this::midnight, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves the active snapshot to the new day. A late run, e.g. after the machine slept, catches
+     * up on every day missed.
+     */
+    private synchronized void midnight() {
+        try {
+            if (publishActive()) {
+                notifyListeners();
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // Keep the scheduler running
+        } finally {
+            scheduleMidnight();
+        }
+    }
+
+    /**
+     * Returns the current date, computing it only once per day.
+     */
+    private LocalDate today() {
+        long now = System.currentTimeMillis();
+        if (today == null || now >= todayEndsAt) {
+            ZoneId zone = ZoneId.systemDefault();
+            today = LocalDate.now(zone);
+            todayEndsAt = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return today;
     }
 
     /**
      * Saves the promotions list to a file.
      */
     private void savePromotions() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(promotions);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        PersistenceWriter.getInstance().replace(FILE, PromotionFile.encode(promotions, dormant))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    }
+                });
     }
 
     /**
-     * Loads the promotions list from a file.
+     * Loads the promotions from a file into the list, index and dormant records.
      *
-     * @return List of promotions or an empty list if the file doesn't exist.
+     * @return True if the file is in the legacy Java serialization format.
      */
-    private List<Promotion> loadPromotions() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            return (List<Promotion>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>(); // Return an empty list if the file doesn't exist
+    private boolean loadPromotions() {
+        try {
+            PromotionFile.Contents contents = PromotionFile.read(FILE, today());
+            for (Promotion promotion : contents.getPromotions()) {
+                insert(promotion);
+            }
+            dormant.addAll(contents.getDormant());
+            if (contents.isLegacy()) {
+                PromotionFile.keepLegacyCopy(FILE);
+            }
+            return contents.isLegacy();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false; // Start without promotions
         }
     }
 
@@ -196,10 +546,86 @@ public class PromotionManager {
         }
     }
 
+    /**
+     * Promotions that apply on a day, with their index; never changed once published.
+     */
+    private static final class ActiveSet {
+        final List<Promotion> promotions; // In the order they started to apply
+        final PromotionIndex byCode;
+        private final Set<Promotion> members;
+
+        ActiveSet() {
+            this(new ArrayList<>(), new PromotionIndex(), identitySet());
+        }
+
+        private ActiveSet(List<Promotion> promotions, PromotionIndex byCode, Set<Promotion> members) {
+            this.promotions = Collections.unmodifiableList(promotions);
+            this.byCode = byCode;
+            this.members = members;
+        }
+
+        boolean contains(Promotion promo) {
+            return members.contains(promo);
+        }
+
+        /**
+         * Copies this snapshot with promotions added and removed.
+         *
+         * @param on  Promotions to add, none of them in this snapshot.
+         * @param off Promotions to remove, all of them in this snapshot.
+         */
+        ActiveSet with(List<Promotion> on, Set<Promotion> off) {
+            List<Promotion> list = new ArrayList<>(promotions.size() + on.size());
+            Set<Promotion> set = identitySet(members);
+            PromotionIndex index = new PromotionIndex(byCode);
+            Set<String> vacated = new HashSet<>(); // Codes whose indexed promotion was removed
+            for (Promotion promo : promotions) {
+                if (!off.contains(promo)) {
+                    list.add(promo);
+                }
+            }
+            for (Promotion promo : off) {
+                set.remove(promo);
+                if (promo.getPromoCode() != null && index.get(promo.getPromoCode()) == promo) {
+                    index.remove(promo);
+                    vacated.add(PromotionIndex.key(promo.getPromoCode()));
+                }
+            }
+            if (!vacated.isEmpty()) {
+                for (Promotion promo : list) {
+                    // The next promotion with the same code takes its place, as in a new index
+                    if (promo.getPromoCode() != null && vacated.contains(PromotionIndex.key(promo.getPromoCode()))) {
+                        index.add(promo);
+                    }
+                }
+            }
+            for (Promotion promo : on) {
+                list.add(promo);
+                set.add(promo);
+                index.add(promo);
+            }
+            return new ActiveSet(list, index, set);
+        }
+    }
+
     /**
      * Listener interface to notify UI components about updates.
+     * <p>
+     * Listeners are called on the thread that changed the promotions, or on the scheduler thread
+     * when a start or end date is reached, so Swing components should hand the update to the
+     * event dispatch thread.
      */
     public interface PromotionManagerListener {
         void onPromotionsUpdated();
+
+        /**
+         * Called when a promotion turns on or off because its start or end date was reached.
+         * The promotions crossing a date together are followed by one {@link #onPromotionsUpdated()}.
+         *
+         * @param promotion Promotion that turned on or off.
+         * @param active    True if it now applies.
+         */
+        default void onPromotionActivationChanged(Promotion promotion, boolean active) {
+        }
     }
 }
@@ -16,7 +16,10 @@ public class SavePizzaCommand implements command {
 
     @Override
     public void execute() {
-        FavoriteManager.addFavorite(pizza); // Adds the pizza to the favorite list
-        System.out.println("Pizza saved to favorites: " + pizza.getName());
+        if (FavoriteManager.addFavorite(pizza)) { // Adds the pizza to the favorite list
+            System.out.println("Pizza saved to favorites: " + pizza.getName());
+        } else {
+            System.out.println("Pizza is already a favorite: " + pizza.getName());
+        }
     }
 }
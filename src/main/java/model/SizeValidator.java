@@ -11,12 +11,10 @@ public class SizeValidator implements ValidationHandler {
     }
 
     @Override
-    public boolean validate(Pizza pizza) {
+    public String check(Pizza pizza) {
         if (pizza.getSize() == null || pizza.getSize().isEmpty()) {
-            System.out.println("Validation failed: Size is not selected.");
-            return false;
+            return "Size is not selected.";
         }
-        System.out.println("Size validation passed.");
-        return nextHandler == null || nextHandler.validate(pizza);
+        return nextHandler == null ? null : nextHandler.check(pizza);
     }
 }
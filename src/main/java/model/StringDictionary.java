@@ -0,0 +1,66 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns a stable int id to each distinct string, so records that repeat the same text (such as
+ * delivery addresses or pizza names) can store 4-byte ids and share one copy of each string.
+ */
+public class StringDictionary {
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Returns the id of a string, adding it if it is new.
+     *
+     * @return Id of the string, or -1 for null.
+     */
+    public synchronized int idOf(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of a string without adding it.
+     *
+     * @return Id of the string, or -1 if it is null or not in the dictionary.
+     */
+    public synchronized int find(String value) {
+        Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the dictionary's own instance of a string, adding it if it is new, so equal strings
+     * can share one object.
+     */
+    public synchronized String canonical(String value) {
+        return value == null ? null : values.get(idOf(value));
+    }
+
+    /**
+     * Returns the string for an id, or null for -1 and unknown ids.
+     */
+    public synchronized String valueOf(int id) {
+        return id >= 0 && id < values.size() ? values.get(id) : null;
+    }
+
+    /**
+     * Number of distinct strings.
+     */
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -2,8 +2,6 @@ package model;
 
 import model.Pizza;
 
-import java.util.List;
-
 public class ToppingsValidator implements ValidationHandler {
     private ValidationHandler nextHandler;
 
@@ -13,13 +11,10 @@ public class ToppingsValidator implements ValidationHandler {
     }
 
     @Override
-    public boolean validate(Pizza pizza) {
-        List<String> toppings = pizza.getToppings();
-        if (toppings == null || toppings.isEmpty()) {
-            System.out.println("Validation failed: At least one topping must be selected.");
-            return false;
+    public String check(Pizza pizza) {
+        if (pizza.getToppings() == null || pizza.getToppings().isEmpty()) {
+            return "At least one topping must be selected.";
         }
-        System.out.println("Toppings validation passed.");
-        return nextHandler == null || nextHandler.validate(pizza);
+        return nextHandler == null ? null : nextHandler.check(pizza);
     }
 }
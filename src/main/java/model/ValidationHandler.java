@@ -5,5 +5,25 @@ import model.Pizza;
 public interface ValidationHandler {
     void setNextHandler(ValidationHandler nextHandler);
 
-    boolean validate(Pizza pizza);
+    /**
+     * Runs {@link #check(Pizza)} and prints its result.
+     *
+     * @return True if the pizza passes the whole chain.
+     */
+    default boolean validate(Pizza pizza) {
+        String reason = check(pizza);
+        if (reason != null) {
+            System.out.println("Validation failed: " + reason);
+            return false;
+        }
+        System.out.println("Validation passed.");
+        return true;
+    }
+
+    /**
+     * Runs this handler's check, then the rest of the chain, without printing, for bulk use.
+     *
+     * @return Reason the first failing check gives, or null if the pizza passes the whole chain.
+     */
+    String check(Pizza pizza);
 }
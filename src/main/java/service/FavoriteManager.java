@@ -1,50 +1,149 @@
 package service;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import manager.FavoritesLog;
+import manager.StorageManager;
 import model.Pizza;
+import model.UserSession;
 
 /**
- * Manages saving and retrieving favorite pizza combinations.
+ * The one place that reads and changes favorite pizza combinations.
+ * <p>
+ * Each signed-in user has their own favorites, found by the email in the {@link UserSession};
+ * guests share one list. Favorites are kept in memory by a {@link FavoritesLog}, which is the
+ * source of truth once loaded: reads never touch the disk, and each change appends one small
+ * record that the {@link manager.PersistenceWriter} merges with the rest of a burst into a single
+ * write. Open windows register a {@link FavoritesListener} and are told about changes instead of
+ * reading favorites again.
+ * <p>
+ * The log is looked up for every call, since a signed-in user's log can be closed when other
+ * users' favorites push it out of the {@link manager.UserFavoritesStore} cache.
  */
 public class FavoriteManager {
-    private static final String FILE_PATH = "favorites.json";
-    private static List<Pizza> favorites = new ArrayList<>();
-    private static final Gson gson = new Gson();
-
-    // Load favorites from the JSON file
-    public static List<Pizza> loadFavorites() {
-        try (FileReader reader = new FileReader(FILE_PATH)) {
-            favorites = gson.fromJson(reader, new TypeToken<List<Pizza>>(){}.getType());
-            if (favorites == null) favorites = new ArrayList<>();
-        } catch (Exception e) {
-            favorites = new ArrayList<>();
+
+    private static final List<FavoritesListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Rewrite the current user's base file and start a fresh change log
+    public static void saveFavorites() {
+        withLog(null, log -> {
+            log.compact(); // Skipped by a closed log, whose changes are all queued already
+            return null;
+        });
+    }
+
+    // Replace all of the current user's favorites
+    public static void replaceFavorites(List<Pizza> pizzas) {
+        if (withLog(false, log -> {
+            log.replaceAll(pizzas);
+            return true;
+        })) {
+            notifyListeners();
         }
-        return favorites;
     }
 
-    // Save favorites to the JSON file
-    public static void saveFavorites() {
-        try (FileWriter writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(favorites, writer);
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Add a pizza to favorites unless the same configuration is already there
+    public static boolean addFavorite(Pizza pizza) {
+        if (!withLog(false, log -> log.addIfAbsent(pizza))) {
+            return false;
         }
+        notifyListeners();
+        return true;
+    }
+
+    // Check whether the same configuration is already a favorite
+    public static boolean isFavorite(Pizza pizza) {
+        return withLog(false, log -> log.contains(pizza));
     }
 
-    // Add a pizza to favorites
-    public static void addFavorite(Pizza pizza) {
-        favorites.add(pizza);
-        saveFavorites();
+    // Remove the favorite at a position in the list
+    public static boolean removeFavorite(int index) {
+        if (!withLog(false, log -> log.remove(index))) {
+            return false;
+        }
+        notifyListeners();
+        return true;
     }
 
     // Retrieve the list of favorite pizzas
     public static List<Pizza> getFavorites() {
-        return favorites;
+        return withLog(new ArrayList<>(), FavoritesLog::getFavorites);
+    }
+
+    // Retrieve the favorites in positions from (inclusive) to to (exclusive), e.g. one page of a table
+    public static List<Pizza> getFavorites(int from, int to) {
+        return withLog(new ArrayList<>(), log -> log.getFavorites(from, to));
+    }
+
+    // Count the favorites without copying them
+    public static int getFavoriteCount() {
+        return withLog(0, FavoritesLog::size);
+    }
+
+    /**
+     * Adds a listener to be notified when favorites change.
+     *
+     * @param listener Listener to add.
+     */
+    public static void addListener(FavoritesListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener Listener to remove.
+     */
+    public static void removeListener(FavoritesListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void notifyListeners() {
+        for (FavoritesListener listener : listeners) {
+            listener.onFavoritesUpdated();
+        }
+    }
+
+    /**
+     * Runs an action on the current user's favorites. If the log was closed by an eviction
+     * between looking it up and using it, the action runs again on the reopened log.
+     *
+     * @param none Result when the favorites cannot be opened.
+     */
+    private static <T> T withLog(T none, Function<FavoritesLog, T> action) {
+        while (true) {
+            FavoritesLog log = log();
+            if (log == null) {
+                return none;
+            }
+            try {
+                return action.apply(log);
+            } catch (IllegalStateException e) {
+                if (!log.isClosed()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static FavoritesLog log() {
+        try {
+            return StorageManager.getFavoritesLog(UserSession.isLoggedIn() ? UserSession.getInstance().getEmail() : null);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Listener interface to notify UI components about changed favorites. Called on the thread
+     * that made the change.
+     */
+    public interface FavoritesListener {
+        void onFavoritesUpdated();
     }
 }
@@ -1,6 +1,7 @@
 package view;
 
 import model.Promotion;
+import model.PromotionCondition;
 import model.PromotionManager;
 
 import javax.swing.*;
@@ -11,12 +12,16 @@ import java.awt.event.ActionEvent;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Admin screen to manage promotions (add, edit, view, and deactivate promotions).
  */
 public class AdminPromotionScreen extends JFrame {
 
+    private static final String[] COLUMN_NAMES = {"Promo Code", "Description", "Discount ($)", "Active"};
+
     private final PromotionManager promotionManager; // Singleton instance of PromotionManager
     private final JTable promoTable;
     private final DefaultTableModel tableModel;
@@ -47,8 +52,7 @@ public class AdminPromotionScreen extends JFrame {
         mainPanel.add(headerLabel, BorderLayout.NORTH);
 
         // Table setup
-        String[] columnNames = {"Promo Code", "Description", "Discount ($)", "Active"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new DefaultTableModel(COLUMN_NAMES, 0);
         promoTable = new JTable(tableModel);
         promoTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         promoTable.setRowHeight(30);
@@ -68,11 +72,13 @@ public class AdminPromotionScreen extends JFrame {
         JButton btnDeactivate = createStyledButton("Deactivate Promotion", "https://img.icons8.com/color/48/remove.png");
         JButton btnRefresh = createStyledButton("Refresh Table", "https://img.icons8.com/color/48/refresh.png");
         JButton btnRemove = createStyledButton("Remove Promotion", "https://img.icons8.com/color/48/delete-forever.png");
+        JButton btnRemoveExpired = createStyledButton("Remove Expired", "https://img.icons8.com/color/48/clear-symbol.png");
 
         buttonPanel.add(btnAdd);
         buttonPanel.add(btnDeactivate);
         buttonPanel.add(btnRefresh);
         buttonPanel.add(btnRemove);
+        buttonPanel.add(btnRemoveExpired);
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         // Button Actions
@@ -80,9 +86,10 @@ public class AdminPromotionScreen extends JFrame {
         btnDeactivate.addActionListener(this::handleDeactivatePromotion);
         btnRefresh.addActionListener(e -> refreshTable());
         btnRemove.addActionListener(this::handleRemovePromotion);
+        btnRemoveExpired.addActionListener(this::handleRemoveExpired);
 
         // Register PromotionManager listener for dynamic updates
-        promotionManager.addListener(this::refreshTable);
+        promotionManager.addListener(() -> SwingUtilities.invokeLater(this::refreshTable));
 
         // Load initial table data
         refreshTable();
@@ -114,6 +121,10 @@ public class AdminPromotionScreen extends JFrame {
 
             String condition = JOptionPane.showInputDialog(this, "Enter Promotion Condition (e.g., TOPPING:Olives) (Optional):");
             if (condition == null || condition.trim().isEmpty()) condition = "ORDER";
+            if (!PromotionCondition.compile(condition).isSatisfiable()) {
+                JOptionPane.showMessageDialog(this, "No order can meet this condition. Use terms such as TOPPING:Olives, SIZE:Large or MIN:25, joined with AND / OR.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
             promotionManager.addPromotion(promoCode, description, discount, true, startDate, endDate, condition);
             JOptionPane.showMessageDialog(this, "Promotion added successfully!");
@@ -168,19 +179,37 @@ public class AdminPromotionScreen extends JFrame {
         }
     }
 
+    /**
+     * Handles removing all expired promotions at once.
+     */
+    private void handleRemoveExpired(ActionEvent e) {
+        int confirm = JOptionPane.showConfirmDialog(
+                this,
+                "Remove all promotions whose end date has passed?",
+                "Confirm Removal",
+                JOptionPane.YES_NO_OPTION
+        );
+        if (confirm == JOptionPane.YES_OPTION) {
+            int removed = promotionManager.removeExpiredPromotions(); // One save and one table refresh
+            JOptionPane.showMessageDialog(this, removed + " expired promotion(s) removed.");
+        }
+    }
+
     /**
      * Refreshes the table data with all promotions.
      */
     private void refreshTable() {
-        tableModel.setRowCount(0); // Clear existing data
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
         for (Promotion promo : promotionManager.getAllPromotions()) {
-            tableModel.addRow(new Object[]{
+            rows.add(new Object[]{
                     promo.getPromoCode(),
                     promo.getPromoName(),
                     promo.getDiscountAmount(),
-                    promo.isCurrentlyActive() ? "Yes" : "No"
+                    promo.isActiveOn(today) ? "Yes" : "No"
             });
         }
+        tableModel.setDataVector(rows.toArray(new Object[0][]), COLUMN_NAMES); // One table event for all rows
     }
 
     /**
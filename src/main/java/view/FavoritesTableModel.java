@@ -0,0 +1,195 @@
+package view;
+
+import model.Pizza;
+import service.FavoriteManager;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Table model that shows favorites without loading them all.
+ * <p>
+ * Favorites are fetched from the {@link FavoriteManager} a page at a time when a row is first
+ * painted, and only the last few pages are kept. Cells are formatted as they are rendered. So
+ * opening the window costs the same however many favorites there are. Sorting and filtering keep
+ * the favorites where they are and only build a permutation of their positions: table row
+ * {@code r} shows favorite {@code rows[r]}.
+ */
+public class FavoritesTableModel extends AbstractTableModel {
+
+    static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 8;
+    private static final String[] COLUMNS = {"Name", "Size", "Crust", "Sauce", "Cheese", "Toppings", "Price"};
+    private static final int PRICE_COLUMN = 6;
+
+    private final Map<Integer, List<Pizza>> pages = new LinkedHashMap<Integer, List<Pizza>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Pizza>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private int favoriteCount;
+    private int[] rows;          // Favorite position per table row, or null when unsorted and unfiltered
+    private int sortColumn = -1; // No sorting
+    private boolean ascending = true;
+    private String filter = "";
+
+    public FavoritesTableModel() {
+        favoriteCount = FavoriteManager.getFavoriteCount();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows != null ? rows.length : favoriteCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Pizza pizza = getPizzaAt(row);
+        if (pizza == null) {
+            return ""; // Favorites changed; a refresh is on its way
+        }
+        if (column == PRICE_COLUMN) {
+            return String.format("$%.2f", pizza.getPrice());
+        }
+        return text(pizza, column);
+    }
+
+    /**
+     * Returns the favorite shown in a table row, or null if it no longer exists.
+     */
+    public Pizza getPizzaAt(int row) {
+        return favoriteAt(rows != null ? rows[row] : row);
+    }
+
+    /**
+     * Sorts by a column, or reverses the order if the table is already sorted by it.
+     */
+    public void sortBy(int column) {
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        rebuildRows();
+    }
+
+    /**
+     * Shows only favorites with the text (ignoring case) in one of their columns. An empty
+     * text shows all favorites.
+     */
+    public void setFilter(String text) {
+        filter = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        rebuildRows();
+    }
+
+    /**
+     * Drops the cached pages after favorites changed, and sorts and filters again.
+     */
+    public void refresh() {
+        pages.clear();
+        favoriteCount = FavoriteManager.getFavoriteCount();
+        rebuildRows();
+    }
+
+    private Pizza favoriteAt(int index) {
+        int page = index / PAGE_SIZE;
+        List<Pizza> favorites = pages.computeIfAbsent(page,
+                number -> FavoriteManager.getFavorites(number * PAGE_SIZE, (number + 1) * PAGE_SIZE));
+        int offset = index % PAGE_SIZE;
+        return offset < favorites.size() ? favorites.get(offset) : null;
+    }
+
+    /**
+     * Recomputes the permutation of favorite positions for the current filter and sort order.
+     * Reads the favorites page by page in order, so each page is fetched once.
+     */
+    private void rebuildRows() {
+        if (filter.isEmpty() && sortColumn < 0) {
+            rows = null;
+            fireTableDataChanged();
+            return;
+        }
+
+        int[] matches = new int[favoriteCount];
+        int count = 0;
+        for (int index = 0; index < favoriteCount; index++) {
+            Pizza pizza = favoriteAt(index);
+            if (pizza != null && matches(pizza)) {
+                matches[count++] = index;
+            }
+        }
+        matches = Arrays.copyOf(matches, count);
+
+        if (sortColumn >= 0) {
+            // Read each sort key once, then sort positions by key (stable, so ties keep list order)
+            Integer[] order = new Integer[count];
+            Comparator<Integer> byKey;
+            if (sortColumn == PRICE_COLUMN) {
+                double[] prices = new double[count];
+                for (int i = 0; i < count; i++) {
+                    Pizza pizza = favoriteAt(matches[i]);
+                    prices[i] = pizza != null ? pizza.getPrice() : 0;
+                }
+                byKey = (a, b) -> Double.compare(prices[a], prices[b]);
+            } else {
+                String[] keys = new String[count];
+                for (int i = 0; i < count; i++) {
+                    Pizza pizza = favoriteAt(matches[i]);
+                    keys[i] = pizza != null ? text(pizza, sortColumn) : "";
+                }
+                byKey = (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(keys[a], keys[b]);
+            }
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, ascending ? byKey : byKey.reversed());
+            int[] sorted = new int[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = matches[order[i]];
+            }
+            matches = sorted;
+        }
+        rows = matches;
+        fireTableDataChanged();
+    }
+
+    private boolean matches(Pizza pizza) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        for (int column = 0; column < PRICE_COLUMN; column++) {
+            if (text(pizza, column).toLowerCase(Locale.ROOT).contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Text of a non-price column, never null.
+     */
+    private static String text(Pizza pizza, int column) {
+        String value = switch (column) {
+            case 0 -> pizza.getName();
+            case 1 -> pizza.getSize();
+            case 2 -> pizza.getCrust();
+            case 3 -> pizza.getSauce();
+            case 4 -> pizza.getCheese();
+            default -> pizza.getToppings() != null ? String.join(", ", pizza.getToppings()) : null;
+        };
+        return value != null ? value : "";
+    }
+}
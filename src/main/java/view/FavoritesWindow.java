@@ -6,19 +6,19 @@ import service.FavoriteManager;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 
-public class FavoritesWindow extends JFrame {
+public class FavoritesWindow extends JFrame implements FavoriteManager.FavoritesListener {
     private JTable table;
     private JButton btnReorder, btnClose, btnBack;
-    private DefaultTableModel tableModel;
+    private FavoritesTableModel tableModel;
 
     public FavoritesWindow() {
         setTitle("Favorite Pizzas");
@@ -59,16 +59,35 @@ public class FavoritesWindow extends JFrame {
         // Add header panel to the main panel
         mainPanel.add(headerPanel, BorderLayout.NORTH);
 
-        // Table setup
-        String[] columnNames = {"Name", "Size", "Crust", "Sauce", "Cheese", "Toppings", "Price"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        // Table setup: rows are read page by page as they are shown
+        tableModel = new FavoritesTableModel();
         table = new JTable(tableModel);
         styleTable();
+        FavoriteManager.addListener(this);
+
+        // Filter field above the table
+        JTextField filterField = new JTextField();
+        filterField.setFont(new Font("Segoe UI", Font.PLAIN, 18));
+        filterField.setToolTipText("Filter favorites");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                tableModel.setFilter(filterField.getText());
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                tableModel.setFilter(filterField.getText());
+            }
 
-        loadFavoritePizzas(); // Load favorite pizzas into the table
+            public void changedUpdate(DocumentEvent e) {
+                tableModel.setFilter(filterField.getText());
+            }
+        });
 
-        JScrollPane scrollPane = new JScrollPane(table);
-        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        JPanel tablePanel = new JPanel(new BorderLayout(10, 10));
+        tablePanel.setOpaque(false);
+        tablePanel.add(filterField, BorderLayout.NORTH);
+        tablePanel.add(new JScrollPane(table), BorderLayout.CENTER);
+        mainPanel.add(tablePanel, BorderLayout.CENTER);
 
         // Buttons Panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 10));
@@ -91,27 +110,6 @@ public class FavoritesWindow extends JFrame {
         setVisible(true);
     }
 
-    /**
-     * Loads favorite pizzas into the table.
-     */
-    private void loadFavoritePizzas() {
-        List<Pizza> favorites = FavoriteManager.loadFavorites();
-        tableModel.setRowCount(0); // Clear existing rows
-
-        for (Pizza pizza : favorites) {
-            String toppings = String.join(", ", pizza.getToppings()); // Convert List<String> to a comma-separated String
-            tableModel.addRow(new Object[]{
-                    pizza.getName(),
-                    pizza.getSize(),
-                    pizza.getCrust(),
-                    pizza.getSauce(),
-                    pizza.getCheese(),
-                    toppings,
-                    String.format("$%.2f", pizza.getPrice())
-            });
-        }
-    }
-
     /**
      * Styles the table with modern design.
      */
@@ -123,6 +121,15 @@ public class FavoritesWindow extends JFrame {
         header.setFont(new Font("Segoe UI", Font.BOLD, 20));
         header.setBackground(new Color(21, 101, 192));
         header.setForeground(Color.WHITE);
+        header.setToolTipText("Click a column to sort");
+        header.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                int column = table.columnAtPoint(evt.getPoint());
+                if (column >= 0) {
+                    tableModel.sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
 
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
         centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
@@ -175,19 +182,8 @@ public class FavoritesWindow extends JFrame {
      */
     private void reorderPizza() {
         int selectedRow = table.getSelectedRow();
-        if (selectedRow != -1) {
-            String toppingsString = (String) tableModel.getValueAt(selectedRow, 5);
-            List<String> toppings = List.of(toppingsString.split(", ")); // Convert String back to List<String>
-
-            Pizza pizza = new Pizza.PizzaBuilder()
-                    .setName((String) tableModel.getValueAt(selectedRow, 0))
-                    .setSize((String) tableModel.getValueAt(selectedRow, 1))
-                    .setCrust((String) tableModel.getValueAt(selectedRow, 2))
-                    .setSauce((String) tableModel.getValueAt(selectedRow, 3))
-                    .setCheese((String) tableModel.getValueAt(selectedRow, 4))
-                    .setToppings(toppings)
-                    .setPrice(Double.parseDouble(((String) tableModel.getValueAt(selectedRow, 6)).replace("$", "")))
-                    .build();
+        Pizza pizza = selectedRow != -1 ? tableModel.getPizzaAt(selectedRow) : null;
+        if (pizza != null) {
 
             String orderId = "ORDER" + System.currentTimeMillis();
             String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
@@ -200,6 +196,17 @@ public class FavoritesWindow extends JFrame {
         }
     }
 
+    @Override
+    public void onFavoritesUpdated() {
+        SwingUtilities.invokeLater(tableModel::refresh); // Changes may come from any thread
+    }
+
+    @Override
+    public void dispose() {
+        FavoriteManager.removeListener(this);
+        super.dispose();
+    }
+
     /**
      * Navigates back to the dashboard screen.
      */
@@ -1,6 +1,8 @@
 package view;
 
+import model.CommandInvoker;
 import model.Order;
+import model.PlaceOrderCommand;
 import model.Promotion;
 import model.PromotionManager;
 import model.UserSession;
@@ -12,6 +14,7 @@ import java.awt.event.ActionEvent;
 import java.net.URL;
 import java.text.DecimalFormat;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class PaymentScreen extends JFrame implements PromotionManager.PromotionManagerListener {
 
@@ -137,11 +140,12 @@ public class PaymentScreen extends JFrame implements PromotionManager.PromotionM
     }
 
     private void refreshPromotions() {
-        promoComboBox.removeAllItems();
-        List<Promotion> promotions = promotionManager.getActivePromotions();
-        for (Promotion promo : promotions) {
-            promoComboBox.addItem(promo.getPromoCode());
+        List<Promotion> promotions = promotionManager.getApplicablePromotions(order);
+        String[] codes = new String[promotions.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = promotions.get(i).getPromoCode();
         }
+        promoComboBox.setModel(new DefaultComboBoxModel<>(codes)); // One event instead of one per item
     }
 
     private void applyPromotion(ActionEvent e) {
@@ -152,13 +156,11 @@ public class PaymentScreen extends JFrame implements PromotionManager.PromotionM
             return;
         }
 
-        Promotion promo = promotionManager.validatePromoCode(promoCode, "ORDER");
-        if (promo != null) {
-            double discount = promo.getDiscountAmount();
-            order.applyPromotion(discount);
+        if (order.applyPromotion(promoCode)) { // Checks the promotion's condition against the order
             orderTotal = order.getTotalPrice();
             orderTotalLabel.setText("$" + df.format(orderTotal));
             loyaltyPointsLabel.setText("" + UserSession.getInstance().getLoyaltyPoints());
+            refreshPromotions(); // The lower total may rule out minimum-order promotions
             JOptionPane.showMessageDialog(this, "Promotion Applied!", "Success", JOptionPane.INFORMATION_MESSAGE);
         } else {
             JOptionPane.showMessageDialog(this, "Invalid promotion!", "Error", JOptionPane.ERROR_MESSAGE);
@@ -192,8 +194,37 @@ public class PaymentScreen extends JFrame implements PromotionManager.PromotionM
         int newPointsEarned = calculateLoyaltyPoints(orderTotal);
         userSession.addLoyaltyPoints(newPointsEarned);
 
+        // Record the paid order off the EDT: saving can wait for the order stores to finish opening,
+        // or for the database
+        order.setTotalPrice(orderTotal);
+        JButton confirmButton = (JButton) e.getSource();
+        confirmButton.setEnabled(false); // The order is paid once
+        int pointsUsed = pointsToUse;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                new CommandInvoker().executeCommand(new PlaceOrderCommand(order));
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(PaymentScreen.this, "The order could not be saved.",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                paymentSaved(paymentMethod, pointsUsed, newPointsEarned);
+            }
+        }.execute();
+    }
+
+    private void paymentSaved(String paymentMethod, int pointsUsed, int newPointsEarned) {
         // Update UI
-        loyaltyPointsLabel.setText(String.valueOf(userSession.getLoyaltyPoints()));
+        loyaltyPointsLabel.setText(String.valueOf(UserSession.getInstance().getLoyaltyPoints()));
         orderTotalLabel.setText("$" + df.format(orderTotal));
 
         // Display confirmation
@@ -201,7 +232,7 @@ public class PaymentScreen extends JFrame implements PromotionManager.PromotionM
                 "Payment Successful!\n" +
                         "Payment Method: " + paymentMethod + "\n" +
                         "Amount Paid: $" + df.format(orderTotal) + "\n" +
-                        "Loyalty Points Used: " + pointsToUse + "\n" +
+                        "Loyalty Points Used: " + pointsUsed + "\n" +
                         "Loyalty Points Earned: " + newPointsEarned,
                 "Success", JOptionPane.INFORMATION_MESSAGE);
 
@@ -221,7 +252,7 @@ public class PaymentScreen extends JFrame implements PromotionManager.PromotionM
 
     @Override
     public void onPromotionsUpdated() {
-        refreshPromotions();
+        SwingUtilities.invokeLater(this::refreshPromotions); // May come from the promotion scheduler
     }
 
     private JLabel createLabel(String text) {
@@ -1,6 +1,7 @@
 package view;
 
 import model.ExtraCheeseDecorator;
+import model.MenuCatalog;
 import model.SpecialPackagingDecorator;
 import model.Pizza;
 import model.Order;
@@ -78,7 +79,7 @@ public class PizzaCustomization extends JFrame {
         gbc.gridy++;
         gbc.gridx = 0;
         formPanel.add(createLabel("Select Size:"), gbc);
-        sizeComboBox = new JComboBox<>(new String[]{"Small - $10", "Medium - $15", "Large - $20"});
+        sizeComboBox = new JComboBox<>(MenuCatalog.SIZES);
         sizeComboBox.addActionListener(e -> updatePrice());
         gbc.gridx = 1;
         formPanel.add(sizeComboBox, gbc);
@@ -87,7 +88,7 @@ public class PizzaCustomization extends JFrame {
         gbc.gridy++;
         gbc.gridx = 0;
         formPanel.add(createLabel("Select Crust:"), gbc);
-        crustComboBox = new JComboBox<>(new String[]{"Thin", "Thick", "Stuffed"});
+        crustComboBox = new JComboBox<>(MenuCatalog.CRUSTS);
         gbc.gridx = 1;
         formPanel.add(crustComboBox, gbc);
 
@@ -95,7 +96,7 @@ public class PizzaCustomization extends JFrame {
         gbc.gridy++;
         gbc.gridx = 0;
         formPanel.add(createLabel("Select Sauce:"), gbc);
-        sauceComboBox = new JComboBox<>(new String[]{"Tomato", "Barbecue", "Garlic"});
+        sauceComboBox = new JComboBox<>(MenuCatalog.SAUCES);
         gbc.gridx = 1;
         formPanel.add(sauceComboBox, gbc);
 
@@ -103,7 +104,7 @@ public class PizzaCustomization extends JFrame {
         gbc.gridy++;
         gbc.gridx = 0;
         formPanel.add(createLabel("Select Cheese:"), gbc);
-        cheeseComboBox = new JComboBox<>(new String[]{"Mozzarella", "Cheddar", "Vegan"});
+        cheeseComboBox = new JComboBox<>(MenuCatalog.CHEESES);
         gbc.gridx = 1;
         formPanel.add(cheeseComboBox, gbc);
 
@@ -139,11 +140,10 @@ public class PizzaCustomization extends JFrame {
 
         JPanel toppingPanel = new JPanel(new GridLayout(2, 3, 10, 10));
         toppingPanel.setOpaque(false);
-        toppingCheckBoxes = new JCheckBox[]{
-                new JCheckBox("Pepperoni"), new JCheckBox("Mushrooms"),
-                new JCheckBox("Olives"), new JCheckBox("Onions"),
-                new JCheckBox("Bacon"), new JCheckBox("Pineapple")
-        };
+        toppingCheckBoxes = new JCheckBox[MenuCatalog.TOPPINGS.length];
+        for (int i = 0; i < toppingCheckBoxes.length; i++) {
+            toppingCheckBoxes[i] = new JCheckBox(MenuCatalog.TOPPINGS[i]);
+        }
         for (JCheckBox checkBox : toppingCheckBoxes) {
             checkBox.setOpaque(false);
             checkBox.setForeground(Color.WHITE);
@@ -289,8 +289,11 @@ public class PizzaCustomization extends JFrame {
                 .setPrice(currentPrice)
                 .build();
 
-        FavoriteManager.addFavorite(pizza);
-        JOptionPane.showMessageDialog(this, "Pizza saved as favorite!", "Success", JOptionPane.INFORMATION_MESSAGE);
+        if (FavoriteManager.addFavorite(pizza)) {
+            JOptionPane.showMessageDialog(this, "Pizza saved as favorite!", "Success", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this, "This pizza is already in your favorites.", "Info", JOptionPane.INFORMATION_MESSAGE);
+        }
     }
 
     private void savePizzaAndOpenOrderSummary(ActionEvent e) {